@@ -0,0 +1,166 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import com.orangeunilabs.glowbot.GlowbotLEDBuffer;
+import com.orangeunilabs.glowbot.IntPixelConsumer;
+import com.orangeunilabs.glowbot.LEDUtils;
+import com.orangeunilabs.glowbot.PatternSection;
+import com.orangeunilabs.glowbot.Pixel;
+import edu.wpi.first.wpilibj.util.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Cost of reading and writing whole buffers and sections: the ways of iterating over pixels, filling ranges, and
+ * translating section-relative indexes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BufferBenchmark {
+    @Param({"60", "300", "1000"})
+    public int length;
+
+    private GlowbotLEDBuffer buffer;
+    private PatternSection section;
+    private final Color orange = Color.kOrange;
+    private final int packedOrange = LEDUtils.pack(Color.kOrange);
+    private int tick = 0;
+    private long pixelSum;
+    /**
+     * Created once, so that forEachPixel only measures the iteration and not a capturing lambda per call
+     */
+    private final IntPixelConsumer sumPixels = (index, rgb) -> pixelSum += rgb;
+
+    @Setup
+    public void setup() {
+        buffer = new GlowbotLEDBuffer(length);
+        section = new PatternSection(buffer, 0, length - 1, null);
+    }
+
+    /* -------- Iteration -------- */
+
+    @Benchmark
+    public long iteratePixels() {
+        long sum = 0;
+        for (Pixel pixel : buffer) {
+            sum += pixel.getRGB();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long forEachPixel() {
+        pixelSum = 0;
+        buffer.forEachPixel(sumPixels);
+        return pixelSum;
+    }
+
+    @Benchmark
+    public long indexedGetRGB() {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += buffer.getRGB(i);
+        }
+        return sum;
+    }
+
+    /**
+     * The iterator Glowbot used to have: a new Pixel and two capturing lambdas for every LED
+     */
+    @Benchmark
+    public void legacyIterator(Blackhole blackhole) {
+        Iterator<LegacyPixel> iterator = new Iterator<>() {
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < length;
+            }
+
+            @Override
+            public LegacyPixel next() {
+                int index = currentIndex++;
+                return new LegacyPixel(index, () -> buffer.getLED(index), (Color color) -> buffer.setLED(index, color));
+            }
+        };
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next().get());
+        }
+    }
+
+    /* -------- Writes -------- */
+
+    @Benchmark
+    public void setRangeColor() {
+        // Alternate colors so every call really writes
+        buffer.setRange(0, length - 1, (tick++ & 1) == 0 ? orange : Color.kBlack);
+    }
+
+    @Benchmark
+    public void fillPacked() {
+        buffer.fill(0, length - 1, (tick++ & 1) == 0 ? packedOrange : 0);
+    }
+
+    @Benchmark
+    public void setLEDColorLoop() {
+        Color color = (tick++ & 1) == 0 ? orange : Color.kBlack;
+        for (int i = 0; i < length; i++) {
+            buffer.setLED(i, color);
+        }
+    }
+
+    /* -------- Section index translation -------- */
+
+    @Benchmark
+    public void bufferSetRGB() {
+        int rgb = tick++;
+        for (int i = 0; i < length; i++) {
+            buffer.setRGB(i, rgb);
+        }
+    }
+
+    @Benchmark
+    public void sectionSetRGB() {
+        int rgb = tick++;
+        for (int i = 0; i < length; i++) {
+            section.setRGB(i, rgb);
+        }
+    }
+
+    @Benchmark
+    public long sectionGetRGB() {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += section.getRGB(i);
+        }
+        return sum;
+    }
+
+    private static final class LegacyPixel {
+        private final int idx;
+        private final Supplier<Color> getter;
+        private final Consumer<Color> setter;
+
+        LegacyPixel(int index, Supplier<Color> colorGetter, Consumer<Color> colorSetter) {
+            idx = index;
+            getter = colorGetter;
+            setter = colorSetter;
+        }
+
+        Color get() {
+            return getter.get();
+        }
+    }
+}
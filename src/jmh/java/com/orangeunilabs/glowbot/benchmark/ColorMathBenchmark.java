@@ -0,0 +1,78 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import com.orangeunilabs.glowbot.LEDRandom;
+import com.orangeunilabs.glowbot.LEDUtils;
+import edu.wpi.first.wpilibj.util.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the color conversions patterns use per pixel. Each benchmark converts all 180 hues once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorMathBenchmark {
+    private final int[] gamma = LEDUtils.gammaTable(2.2);
+    private final LEDRandom random = new LEDRandom(5013);
+
+    @Benchmark
+    public int wpilibFromHSV() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.pack(Color.fromHSV(h, 255, 128));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int hsvToRgb() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.hsvToRgb(h, 255, 128);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int rgbToHsv() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.rgbToHsv(h, 255 - h, 128)[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int gammaAndScale() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.scale(LEDUtils.applyTable(h * 0x010101, gamma), 200);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int colorShift() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.pack(LEDUtils.randomColorShift(new Color(h, 255 - h, 128)));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int randomShift() {
+        int sum = 0;
+        for (int h = 0; h < 180; h++) {
+            sum += LEDUtils.randomShift(LEDUtils.pack(h, 255 - h, 128), random);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,64 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import com.orangeunilabs.glowbot.GlowbotRio;
+import com.orangeunilabs.glowbot.GlowbotRioConfig;
+import com.orangeunilabs.glowbot.pattern.builtin.GBRainbow;
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.util.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a full {@link GlowbotRio} frame (render every section, publish, setData) on the simulation HAL. Half the
+ * strip runs a rainbow and the rest is split into static sections, which is typical of a robot. Frames are sent as
+ * drawn, gamma corrected, or gamma corrected with temporal dithering.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBenchmark {
+    @Param({"60", "300", "1000"})
+    public int length;
+
+    @Param({"plain", "corrected", "dithered"})
+    public String correction;
+
+    private GlowbotRio glowbot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HAL.initialize(500, 0);
+
+        GlowbotRioConfig config = new GlowbotRioConfig(0, length);
+        if (!correction.equals("plain")) {
+            config.setGamma(2.2);
+            config.setTemporalDithering(correction.equals("dithered"));
+        }
+        glowbot = new GlowbotRio(config);
+        int half = length / 2;
+        glowbot.getSection(0, half - 1).setCurrentPattern(new GBRainbow());
+        glowbot.getSection(half, half + 9).setCurrentPattern(new GBSolid(Color.kOrange));
+        glowbot.getSection(half + 10, length - 1).setCurrentPattern(new GBSolid(Color.kBlue));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        glowbot.close();
+    }
+
+    @Benchmark
+    public void frame() {
+        glowbot.periodic();
+    }
+}
@@ -0,0 +1,87 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import com.orangeunilabs.glowbot.FrameOps;
+import com.orangeunilabs.glowbot.LEDUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the bulk frame operations blending and transitions use, against the per-pixel {@link LEDUtils} loops they
+ * replace (the {@code Loop} benchmarks). Runs with the Vector API kernels when the JVM has them; see {@link ScalarFrameOpsBenchmark} for the
+ * fallback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameOpsBenchmark {
+    @Param({"60", "300", "1000"})
+    public int length;
+
+    private int[] from, to, frame;
+    private int amount = 0;
+
+    @Setup
+    public void setup() {
+        from = new int[length];
+        to = new int[length];
+        frame = new int[length];
+        for (int idx = 0; idx < length; idx++) {
+            from[idx] = LEDUtils.hsvToRgb(idx % 180, 255, 255);
+            to[idx] = LEDUtils.hsvToRgb((idx + 90) % 180, 255, 128);
+        }
+    }
+
+    @Benchmark
+    public int lerpLoop() {
+        amount = (amount + 1) & 0xFF;
+        for (int idx = 0; idx < length; idx++) {
+            frame[idx] = LEDUtils.blend(from[idx], to[idx], amount);
+        }
+        return frame[length - 1];
+    }
+
+    @Benchmark
+    public int lerp() {
+        amount = (amount + 1) & 0xFF;
+        FrameOps.lerp(from, to, frame, 0, length - 1, amount);
+        return frame[length - 1];
+    }
+
+    @Benchmark
+    public int scaleLoop() {
+        amount = (amount + 1) & 0xFF;
+        for (int idx = 0; idx < length; idx++) {
+            frame[idx] = LEDUtils.scale(from[idx], amount);
+        }
+        return frame[length - 1];
+    }
+
+    @Benchmark
+    public int scale() {
+        amount = (amount + 1) & 0xFF;
+        FrameOps.scale(from, frame, 0, length - 1, amount);
+        return frame[length - 1];
+    }
+
+    @Benchmark
+    public int addLoop() {
+        for (int idx = 0; idx < length; idx++) {
+            frame[idx] = LEDUtils.add(from[idx], to[idx]);
+        }
+        return frame[length - 1];
+    }
+
+    @Benchmark
+    public int add() {
+        FrameOps.add(from, to, frame, 0, length - 1);
+        return frame[length - 1];
+    }
+}
@@ -0,0 +1,85 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import com.orangeunilabs.glowbot.FrameContext;
+import com.orangeunilabs.glowbot.GlowbotLEDBuffer;
+import com.orangeunilabs.glowbot.PatternSection;
+import com.orangeunilabs.glowbot.pattern.CachedPattern;
+import com.orangeunilabs.glowbot.pattern.FrameCache;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.pattern.builtin.GB2ColorAlternate;
+import com.orangeunilabs.glowbot.pattern.builtin.GBChaos;
+import com.orangeunilabs.glowbot.pattern.builtin.GBRainbow;
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import com.orangeunilabs.glowbot.pattern.builtin.GB_Blinking;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.util.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of running each builtin pattern once. Patterns are called directly so that static patterns are measured too,
+ * instead of being skipped by {@link PatternSection#periodic(FrameContext)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatternBenchmark {
+    @Param({"60", "300", "1000"})
+    public int length;
+
+    @Param({"solid", "rainbow", "cachedRainbow", "chaos", "blinking", "alternate"})
+    public String pattern;
+
+    private PatternSection section;
+    private LEDPattern ledPattern;
+    private final FrameContext frame = new FrameContext();
+    private double timestamp = 0;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+
+        section = new PatternSection(new GlowbotLEDBuffer(length), 0, length - 1, null);
+        switch (pattern) {
+            case "solid":
+                ledPattern = new GBSolid(Color.kOrange);
+                break;
+            case "rainbow":
+                ledPattern = new GBRainbow();
+                break;
+            case "cachedRainbow":
+                ledPattern = new CachedPattern(new GBRainbow(), new FrameCache(FrameCache.DEFAULT_BUDGET_BYTES * 4));
+                break;
+            case "chaos":
+                ledPattern = new GBChaos();
+                break;
+            case "blinking":
+                ledPattern = new GB_Blinking(Color.kOrange, 0.1);
+                break;
+            case "alternate":
+                ledPattern = new GB2ColorAlternate(Color.kOrange, Color.kBlue, 0.1);
+                break;
+            default:
+                throw new IllegalArgumentException(pattern);
+        }
+
+        frame.advance(timestamp);
+        ledPattern.runPattern(section, frame, true);
+    }
+
+    @Benchmark
+    public void runPattern() {
+        // Step time like a 50Hz updater so animated patterns actually change every call
+        timestamp += 0.02;
+        frame.advance(timestamp);
+        ledPattern.runPattern(section, frame, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.orangeunilabs.glowbot.benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * {@link FrameOpsBenchmark} with the Vector API turned off, so the fallback used on the roboRIO is measured on the
+ * same machine
+ */
+@Fork(jvmArgsPrepend = "-Dglowbot.vector=false")
+public class ScalarFrameOpsBenchmark extends FrameOpsBenchmark {
+}
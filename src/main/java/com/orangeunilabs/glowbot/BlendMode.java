@@ -0,0 +1,72 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * How a {@link GlowbotLayer} is combined with the layers underneath it. Every mode takes the layer's opacity
+ * [0-255] into account, and all of them are integer-only.
+ */
+public enum BlendMode {
+    /** The layer hides everything underneath it. Opacity dims the layer rather than showing what is underneath. */
+    Replace {
+        @Override
+        public int blend(int below, int above, int opacity) {
+            return LEDUtils.scale(above, opacity);
+        }
+    },
+    /** The layer's colors are added to the ones underneath, i.e. for glows and highlights */
+    Add {
+        @Override
+        public int blend(int below, int above, int opacity) {
+            return LEDUtils.add(below, LEDUtils.scale(above, opacity));
+        }
+    },
+    /** The colors underneath are multiplied by the layer's colors, so black darkens and white leaves them alone */
+    Multiply {
+        @Override
+        public int blend(int below, int above, int opacity) {
+            return LEDUtils.blend(below, LEDUtils.multiply(below, above), opacity);
+        }
+    },
+    /** The layer is drawn over the colors underneath, which show through as the opacity is lowered */
+    AlphaOver {
+        @Override
+        public int blend(int below, int above, int opacity) {
+            return LEDUtils.blend(below, above, opacity);
+        }
+    };
+
+    /**
+     * Combine one LED of a layer with the color underneath it
+     *
+     * @param below   the packed color underneath the layer
+     * @param above   the packed color of the layer
+     * @param opacity the layer's opacity [0-255]
+     * @return the packed result
+     */
+    public abstract int blend(int below, int above, int opacity);
+
+    /**
+     * Blend the LEDs [start, end] of a layer into a frame
+     */
+    void composite(int[] above, int[] frame, int start, int end, int opacity) {
+        if (opacity == 255 && (this == Replace || this == AlphaOver)) {
+            // Fully opaque, so the layer simply covers the frame
+            System.arraycopy(above, start, frame, start, end - start + 1);
+            return;
+        }
+        if (this == Replace) {
+            FrameOps.scale(above, frame, start, end, opacity);
+            return;
+        }
+        if (this == AlphaOver) {
+            FrameOps.lerp(frame, above, frame, start, end, opacity);
+            return;
+        }
+        if (this == Add && opacity == 255) {
+            FrameOps.add(frame, above, frame, start, end);
+            return;
+        }
+        for (int idx = start; idx <= end; idx++) {
+            frame[idx] = blend(frame[idx], above[idx], opacity);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * Corrects frames for the LED chip as they are handed to the output: gamma, white balance, and channel order are
+ * folded into one table per channel, so patterns keep drawing in plain RGB and each LED costs three lookups. Only the
+ * LEDs that changed since the last frame are corrected. Only used by the thread rendering frames.
+ */
+final class ColorCorrection {
+    /**
+     * The corrected value of each channel, already shifted to where the chip expects that channel
+     */
+    private final int[] redTable, greenTable, blueTable;
+    /**
+     * The corrected frame, which is sent instead of the front buffer
+     */
+    private final GlowbotLEDBuffer corrected;
+
+    /**
+     * @param wireOrder the order the output sends channels in
+     */
+    ColorCorrection(GlowbotRioConfig config, ColorOrder wireOrder) {
+        int whiteBalance = config.getWhiteBalance();
+        ColorOrder order = config.getColorOrder();
+        redTable = table(config.getGamma(), LEDUtils.red(whiteBalance), order.shiftOf('R', wireOrder));
+        greenTable = table(config.getGamma(), LEDUtils.green(whiteBalance), order.shiftOf('G', wireOrder));
+        blueTable = table(config.getGamma(), LEDUtils.blue(whiteBalance), order.shiftOf('B', wireOrder));
+        corrected = new GlowbotLEDBuffer(config.length, false);
+    }
+
+    /**
+     * Correct the LEDs that changed in a frame
+     *
+     * @param frame the frame to send, with its dirty range set to what changed since the last one
+     * @return the corrected frame, with the same dirty range. The frame's dirty range is cleared.
+     */
+    GlowbotLEDBuffer correct(GlowbotLEDBuffer frame) {
+        int start = frame.getDirtyStart(), end = frame.getDirtyEnd();
+        int[] pixels = frame.pixels, out = corrected.pixels;
+        int[] red = redTable, green = greenTable, blue = blueTable;
+        for (int idx = start; idx <= end; idx++) {
+            int rgb = pixels[idx];
+            out[idx] = red[(rgb >> 16) & 0xFF] | green[(rgb >> 8) & 0xFF] | blue[rgb & 0xFF];
+        }
+        corrected.markDirty(start, end);
+        frame.clearDirty();
+        return corrected;
+    }
+
+    private static int[] table(double gamma, int whitePoint, int shift) {
+        int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (int) Math.round(Math.pow(i / 255.0, gamma) * whitePoint) << shift;
+        }
+        return table;
+    }
+}
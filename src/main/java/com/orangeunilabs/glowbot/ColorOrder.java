@@ -0,0 +1,29 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * The order an LED chip expects its color channels in, as listed in its datasheet, or the order an
+ * {@link com.orangeunilabs.glowbot.output.LEDOutput} sends them in (see
+ * {@link com.orangeunilabs.glowbot.output.LEDOutput#getWireOrder()}). The roboRIO's PWM output sends green, red, blue,
+ * which is what WS2812B expect, while outputs to a coprocessor send red, green, blue. Strips whose chips expect
+ * another order than their output sends show the wrong colors unless their order is set with
+ * {@link GlowbotRioConfig#setColorOrder(ColorOrder)}.
+ */
+public enum ColorOrder {
+    RGB, RBG, GRB, GBR, BRG, BGR;
+
+    /**
+     * @param channel   'R', 'G', or 'B'
+     * @param wireOrder the order the output sends the channels of a packed color in
+     * @return where this chip's channel has to go in a packed color so it lands where the chip expects it
+     */
+    int shiftOf(char channel, ColorOrder wireOrder) {
+        switch (wireOrder.name().charAt(name().indexOf(channel))) {
+            case 'R':
+                return 16;
+            case 'G':
+                return 8;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Timing information for a single frame. The clock is read once per frame and the same FrameContext is handed to
+ * every pattern, so all patterns animate by wall time no matter how often (or how reliably) they are updated.
+ */
+public final class FrameContext {
+    private double timestamp = 0;
+    private double deltaTime = 0;
+    private long frameNumber = 0;
+
+    public FrameContext() {
+        // Default constructor
+    }
+
+    /**
+     * @return the FPGA timestamp of this frame, in seconds
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the time since the previous frame, in seconds. This is 0 for the first frame.
+     */
+    public double getDeltaTime() {
+        return deltaTime;
+    }
+
+    /**
+     * @return how many frames have been rendered, starting at 1 for the first frame
+     */
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    /**
+     * Move on to the next frame, reading the FPGA clock. Only needed when driving {@link PatternSection}s without a
+     * {@link GlowbotRio}.
+     */
+    public void advance() {
+        advance(Timer.getFPGATimestamp());
+    }
+
+    /**
+     * Move on to the next frame.
+     *
+     * @param newTimestamp the FPGA timestamp of the new frame, in seconds
+     */
+    public void advance(double newTimestamp) {
+        deltaTime = frameNumber == 0 ? 0 : newTimestamp - timestamp;
+        timestamp = newTimestamp;
+        frameNumber++;
+    }
+}
@@ -0,0 +1,25 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * The per-pixel math behind {@link FrameOps}, for runs of packed {@code 0xRRGGBB} colors [start, end]. Every
+ * implementation gives exactly the same results as {@link LEDUtils}; they only differ in speed.
+ * <p>
+ * Colors are handled two channels at a time in one int (SWAR): red and blue sit 16 bits apart, so {@code 0xFF00FF}
+ * masks both and each has room for a product of up to 16 bits without running into the other.
+ */
+interface FrameKernels {
+    /**
+     * @see LEDUtils#scale(int, int)
+     */
+    void scale(int[] src, int[] dst, int start, int end, int brightness);
+
+    /**
+     * @see LEDUtils#add(int, int)
+     */
+    void add(int[] a, int[] b, int[] dst, int start, int end);
+
+    /**
+     * @see LEDUtils#blend(int, int, int)
+     */
+    void lerp(int[] from, int[] to, int[] dst, int start, int end, int amount);
+}
@@ -0,0 +1,199 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing metrics for the frames rendered by a {@link GlowbotRio}, along with how much current the strip is estimated to
+ * draw. Get one with {@link GlowbotRio#enableMetrics()}.
+ * <br>
+ * Recording happens on the updater thread and only touches preallocated, lock-free counters. Publishing to
+ * NetworkTables or a DataLog happens when {@link #publish()} is called, i.e. from robotPeriodic, so it never adds work
+ * to the updater.
+ */
+public final class FrameMetrics {
+    private static final String[] METRIC_NAMES = {
+            "frameTimeMeanUs", "frameTimeP99Us", "frameTimeMaxUs",
+            "renderTimeMeanUs", "renderTimeMaxUs",
+            "setDataTimeMeanUs", "setDataTimeMaxUs",
+            "jitterP99Us", "jitterMaxUs",
+            "overruns", "pushedFrames", "skippedFrames", "updateRateHz",
+            "estimatedCurrentMa", "powerScale"
+    };
+
+    /** Time spent running patterns */
+    @Getter
+    private final LatencyHistogram renderTime = new LatencyHistogram();
+    /**
+     * Time spent in {@link com.orangeunilabs.glowbot.output.LEDOutput#setData} alone, only for frames that called it.
+     * Compositing, color correction, and power limiting count towards the frame time but not this.
+     */
+    @Getter
+    private final LatencyHistogram setDataTime = new LatencyHistogram();
+    /** Total time from the start of rendering to the end of setData */
+    @Getter
+    private final LatencyHistogram frameTime = new LatencyHistogram();
+    /** How far the time between two frames strayed from the update period */
+    @Getter
+    private final LatencyHistogram jitter = new LatencyHistogram();
+    private final AtomicLong overrunCount = new AtomicLong();
+
+    private final GlowbotRio glowbot;
+    private long lastFrameStartNanos = 0;
+
+    private final double[] values = new double[METRIC_NAMES.length];
+    private DoublePublisher[] publishers;
+    private DoubleLogEntry[] logEntries;
+    private NetworkTable sectionTable;
+    private DataLog sectionLog;
+    private String sectionLogPrefix;
+    private final Map<PatternSection, DoublePublisher> sectionPublishers = new HashMap<>();
+    private final Map<PatternSection, DoubleLogEntry> sectionLogEntries = new HashMap<>();
+
+    FrameMetrics(GlowbotRio glowbot) {
+        this.glowbot = glowbot;
+    }
+
+    /**
+     * Record one frame. All times come from {@link System#nanoTime()}.
+     *
+     * @param startNanos    when the frame started
+     * @param renderedNanos when all patterns finished running
+     * @param endNanos      when the frame finished, including setData
+     * @param sentData      whether setData was called
+     * @param setDataNanos  how long setData took
+     * @param periodSeconds the period the updater is meant to run at, or 0 if unknown
+     */
+    void recordFrame(long startNanos, long renderedNanos, long endNanos, boolean sentData, long setDataNanos,
+                     double periodSeconds) {
+        long frameNanos = endNanos - startNanos;
+        renderTime.record(renderedNanos - startNanos);
+        if (sentData) {
+            setDataTime.record(setDataNanos);
+        }
+        frameTime.record(frameNanos);
+
+        if (periodSeconds > 0) {
+            long periodNanos = (long) (periodSeconds * 1e9);
+            if (lastFrameStartNanos != 0) {
+                jitter.record(Math.abs((startNanos - lastFrameStartNanos) - periodNanos));
+            }
+            if (frameNanos > periodNanos) {
+                overrunCount.incrementAndGet();
+            }
+        }
+        lastFrameStartNanos = startNanos;
+    }
+
+    /**
+     * @return how many frames took longer than the update period
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * Clear all recorded metrics
+     */
+    public void reset() {
+        renderTime.reset();
+        setDataTime.reset();
+        frameTime.reset();
+        jitter.reset();
+        overrunCount.set(0);
+        lastFrameStartNanos = 0;
+    }
+
+    /**
+     * Publish metrics to NetworkTables under the given table whenever {@link #publish()} is called
+     *
+     * @param table the table to publish to
+     */
+    public void publishTo(NetworkTable table) {
+        publishers = new DoublePublisher[METRIC_NAMES.length];
+        for (int i = 0; i < METRIC_NAMES.length; i++) {
+            publishers[i] = table.getDoubleTopic(METRIC_NAMES[i]).publish();
+        }
+        sectionTable = table.getSubTable("sections");
+        sectionPublishers.clear();
+    }
+
+    /**
+     * Log metrics to a DataLog whenever {@link #publish()} is called
+     *
+     * @param log    the log to write to
+     * @param prefix prefix for every entry name, i.e. "/glowbot/"
+     */
+    public void logTo(DataLog log, String prefix) {
+        logEntries = new DoubleLogEntry[METRIC_NAMES.length];
+        for (int i = 0; i < METRIC_NAMES.length; i++) {
+            logEntries[i] = new DoubleLogEntry(log, prefix + METRIC_NAMES[i]);
+        }
+        sectionLog = log;
+        sectionLogPrefix = prefix + "sections/";
+        sectionLogEntries.clear();
+    }
+
+    /**
+     * Send the current metrics to NetworkTables and/or the DataLog, if they have been set up with
+     * {@link #publishTo(NetworkTable)} or {@link #logTo(DataLog, String)}. Call this periodically from robot code.
+     */
+    public void publish() {
+        if (publishers == null && logEntries == null) {
+            return;
+        }
+
+        values[0] = frameTime.getMeanMicros();
+        values[1] = frameTime.getPercentileMicros(0.99);
+        values[2] = frameTime.getMaxMicros();
+        values[3] = renderTime.getMeanMicros();
+        values[4] = renderTime.getMaxMicros();
+        values[5] = setDataTime.getMeanMicros();
+        values[6] = setDataTime.getMaxMicros();
+        values[7] = jitter.getPercentileMicros(0.99);
+        values[8] = jitter.getMaxMicros();
+        values[9] = overrunCount.get();
+        values[10] = glowbot.getPushedFrameCount();
+        values[11] = glowbot.getSkippedFrameCount();
+        values[12] = glowbot.getUpdateRateHertz();
+        values[13] = glowbot.getEstimatedCurrentMilliamps();
+        values[14] = glowbot.getPowerScale();
+
+        for (int i = 0; i < values.length; i++) {
+            if (publishers != null) {
+                publishers[i].set(values[i]);
+            }
+            if (logEntries != null) {
+                logEntries[i].append(values[i]);
+            }
+        }
+
+        for (PatternSection section : glowbot.getSections()) {
+            double renderMicros = section.getLastRenderTimeNanos() / 1000.0;
+            if (publishers != null) {
+                sectionPublishers.computeIfAbsent(section,
+                        s -> sectionTable.getDoubleTopic(sectionKey(s) + "/renderTimeUs").publish()).set(renderMicros);
+            }
+            if (logEntries != null) {
+                sectionLogEntries.computeIfAbsent(section,
+                        s -> new DoubleLogEntry(sectionLog, sectionLogPrefix + sectionKey(s) + "/renderTimeUs"))
+                        .append(renderMicros);
+            }
+        }
+    }
+
+    private static String sectionKey(PatternSection section) {
+        String name = section.getName();
+        if (name != null) {
+            return name;
+        }
+        return section.getStartIndex() + "-" + section.getEndIndex();
+    }
+}
@@ -0,0 +1,131 @@
+package com.orangeunilabs.glowbot;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+
+/**
+ * Bulk operations on frames of packed {@code 0xRRGGBB} colors, i.e. {@link GlowbotLEDBuffer}'s pixels or the scratch
+ * frames patterns and transitions draw into. Ranges are inclusive, like the rest of Glowbot, and source and
+ * destination may be the same array.
+ * <p>
+ * Fills, copies and shifts use {@link Arrays#fill} and {@link System#arraycopy}. The color math uses the incubating
+ * Vector API when the JVM was started with {@code --add-modules jdk.incubator.vector} on a 64-bit desktop or
+ * coprocessor, and plain loops everywhere else, including the roboRIO. Both give exactly the same results as the
+ * matching {@link LEDUtils} methods. Start the JVM with {@code -Dglowbot.vector=false} to always use the plain loops.
+ */
+@UtilityClass
+public class FrameOps {
+    private static final FrameKernels kernels = loadKernels();
+
+    /**
+     * @return whether the color math is using the Vector API
+     */
+    public static boolean isVectorized() {
+        return !(kernels instanceof ScalarFrameKernels);
+    }
+
+    /**
+     * Set the colors [start, end] to one color
+     */
+    public static void fill(int[] frame, int start, int end, int rgb) {
+        Arrays.fill(frame, start, end + 1, rgb);
+    }
+
+    /**
+     * Copy {@code count} colors from one frame to another. The ranges may overlap.
+     */
+    public static void copy(int[] src, int srcStart, int[] dst, int dstStart, int count) {
+        System.arraycopy(src, srcStart, dst, dstStart, count);
+    }
+
+    /**
+     * Move the colors [start, end] along the frame
+     *
+     * @param distance how far to move them towards the end. Negative moves them towards the start.
+     * @param fillRgb  the color of the LEDs that are uncovered
+     */
+    public static void shift(int[] frame, int start, int end, int distance, int fillRgb) {
+        int count = end - start + 1;
+        if (Math.abs(distance) >= count) {
+            Arrays.fill(frame, start, end + 1, fillRgb);
+        } else if (distance > 0) {
+            System.arraycopy(frame, start, frame, start + distance, count - distance);
+            Arrays.fill(frame, start, start + distance, fillRgb);
+        } else if (distance < 0) {
+            System.arraycopy(frame, start - distance, frame, start, count + distance);
+            Arrays.fill(frame, end + distance + 1, end + 1, fillRgb);
+        }
+    }
+
+    /**
+     * Move the colors [start, end] along the frame, wrapping the ones that fall off one end around to the other
+     *
+     * @param distance how far to move them towards the end. Negative moves them towards the start.
+     */
+    public static void rotate(int[] frame, int start, int end, int distance) {
+        int count = end - start + 1;
+        int split = Math.floorMod(distance, count);
+        if (split == 0) {
+            return;
+        }
+        // Rotating is three reversals, which needs no scratch space
+        reverse(frame, start, end);
+        reverse(frame, start, start + split - 1);
+        reverse(frame, start + split, end);
+    }
+
+    /**
+     * Scale the brightness of the colors [start, end]
+     *
+     * @param brightness the brightness [0-255], where 255 leaves the colors unchanged and 0 turns them off
+     * @see LEDUtils#scale(int, int)
+     */
+    public static void scale(int[] src, int[] dst, int start, int end, int brightness) {
+        kernels.scale(src, dst, start, end, brightness);
+    }
+
+    /**
+     * Add two frames [start, end], clamping each channel at 255
+     *
+     * @see LEDUtils#add(int, int)
+     */
+    public static void add(int[] a, int[] b, int[] dst, int start, int end) {
+        kernels.add(a, b, dst, start, end);
+    }
+
+    /**
+     * Blend between two frames [start, end]
+     *
+     * @param amount how far to blend [0-255], where 0 is {@code from} and 255 is {@code to}
+     * @see LEDUtils#blend(int, int, int)
+     */
+    public static void lerp(int[] from, int[] to, int[] dst, int start, int end, int amount) {
+        kernels.lerp(from, to, dst, start, end, amount);
+    }
+
+    private static void reverse(int[] frame, int start, int end) {
+        for (; start < end; start++, end--) {
+            int swap = frame[start];
+            frame[start] = frame[end];
+            frame[end] = swap;
+        }
+    }
+
+    private static FrameKernels loadKernels() {
+        // Without SIMD support in the JIT (i.e. on the roboRIO's 32-bit ARM), the Vector API is far slower than loops
+        String arch = System.getProperty("os.arch");
+        boolean simd = arch.equals("amd64") || arch.equals("x86_64") || arch.equals("aarch64");
+        if (simd && Boolean.parseBoolean(System.getProperty("glowbot.vector", "true"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so that this class never links against the module when it is missing
+                return (FrameKernels) Class.forName("com.orangeunilabs.glowbot.VectorFrameKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the loops
+            }
+        }
+        return new ScalarFrameKernels();
+    }
+}
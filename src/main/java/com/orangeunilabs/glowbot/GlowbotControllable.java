@@ -44,5 +44,61 @@ public interface GlowbotControllable extends Iterable<Pixel> {
 
     void setRange(int start, int end, Color color);
 
+    /**
+     * Get the color at a specified index without allocating.
+     *
+     * @param index the index of the LED. This index may be relative to a section.
+     * @return the color packed as {@code 0xRRGGBB}
+     * @see LEDUtils#pack(int, int, int)
+     */
+    int getRGB(int index);
+
+    /**
+     * Set the color of the LED at a given index without allocating.
+     *
+     * @param index the index of the LED. This index may be relative to a section.
+     * @param rgb   the color packed as {@code 0xRRGGBB}
+     * @see LEDUtils#pack(int, int, int)
+     */
+    void setRGB(int index, int rgb);
+
+    /**
+     * Set the LEDs in the range [start, end] to a color without allocating.
+     *
+     * @param start the index of the first LED. This index may be relative to a section.
+     * @param end   the index of the last LED. This index may be relative to a section.
+     * @param rgb   the color packed as {@code 0xRRGGBB}
+     */
+    void fill(int start, int end, int rgb);
+
+    /**
+     * Scale the brightness of the LEDs in the range [start, end] without allocating, i.e. to fade them out
+     *
+     * @param start      the index of the first LED. This index may be relative to a section.
+     * @param end        the index of the last LED. This index may be relative to a section.
+     * @param brightness the brightness [0-255], where 255 leaves the colors unchanged and 0 turns them off
+     * @see LEDUtils#scale(int, int)
+     */
+    void scale(int start, int end, int brightness);
+
+    /**
+     * Copy a run of packed colors onto consecutive LEDs without allocating. This is the fastest way to draw a frame
+     * that was computed ahead of time.
+     *
+     * @param start  the index of the first LED to set. This index may be relative to a section.
+     * @param rgb    colors packed as {@code 0xRRGGBB}
+     * @param offset the position in {@code rgb} of the first color
+     * @param count  how many LEDs to set
+     */
+    void setRGB(int start, int[] rgb, int offset, int count);
+
+    /**
+     * Visit every LED without allocating. This is the fastest way to read a whole section; the
+     * {@link Pixel} iterator is more convenient when LEDs also need to be written.
+     *
+     * @param action called with the index and packed color of each LED, in order
+     */
+    void forEachPixel(IntPixelConsumer action);
+
     int getLength();
 }
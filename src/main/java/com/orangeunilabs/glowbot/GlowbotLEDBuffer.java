@@ -5,7 +5,11 @@ import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is a custom extension of the {@link AddressableLEDBuffer} from WPILib. In addition to being used within
@@ -15,29 +19,108 @@ import java.util.Iterator;
  * <ul>
  *   <li>Enhanced for loop support
  *   <li>Controlling the entire LED strip or sections of it with a single method call
+ *   <li>Allocation-free access to pixels as packed {@code 0xRRGGBB} ints
  * </ul>
+ *
+ * Every write is stored in a packed int frame and mirrored into the underlying {@link AddressableLEDBuffer}, so the
+ * buffer can be handed straight to {@link edu.wpi.first.wpilibj.AddressableLED#setData(AddressableLEDBuffer)}.
+ * Writes that change a pixel also widen the buffer's dirty range, which lets callers skip pushing frames that are
+ * identical to the last one (see {@link #isDirty()}).
  */
 public class GlowbotLEDBuffer extends AddressableLEDBuffer implements Iterable<Pixel>  {
+    /**
+     * An empty dirty range, packed the same way as {@link #foreignDirty}
+     */
+    private static final long CLEAN = packRange(Integer.MAX_VALUE, -1);
+
+    /**
+     * The current frame, one {@code 0xRRGGBB} int per LED
+     */
+    final int[] pixels;
+    /**
+     * Whether writes are copied into the wire bytes of the {@link AddressableLEDBuffer}. GlowbotRio turns this off
+     * for the buffer patterns draw into, since only the front buffer it publishes to is handed to the LED strip.
+     */
+    private final boolean mirrorToWire;
+    /**
+     * The range of LEDs [dirtyStart, dirtyEnd] that changed since {@link #clearDirty()} was last called. The range is
+     * empty when dirtyStart is greater than dirtyEnd. Only written by the render thread.
+     */
+    private int dirtyStart, dirtyEnd;
+
+    /* -------- Cross-thread writes -------- */
+
+    /**
+     * The thread that renders and publishes frames. When this is set, writes made from any other thread are tracked
+     * so that {@link #publishTo(GlowbotLEDBuffer)} never publishes a half-drawn frame. When null, the buffer is assumed
+     * to be used from a single thread.
+     */
+    volatile Thread renderThread;
+    /**
+     * The dirty range written by threads other than the render thread, packed by {@link #packRange(int, int)}
+     */
+    private final AtomicLong foreignDirty = new AtomicLong(CLEAN);
+    private final AtomicInteger activeForeignWrites = new AtomicInteger();
+    private final AtomicLong foreignWriteCount = new AtomicLong();
+    /**
+     * How many frames are being drawn between {@link #beginFrame()} and {@link #commitFrame()}
+     */
+    private final AtomicInteger openFrames = new AtomicInteger();
+    /**
+     * How many times every open frame has been committed. A commit can change what sections draw, for example when a
+     * whole set of sections is swapped, so a frame rendered before the commit must not be published after it.
+     */
+    private final AtomicLong commits = new AtomicLong();
+    /**
+     * {@link #commits} when the render thread started drawing the current frame. Only used by the render thread.
+     */
+    private long renderedCommits;
+    /**
+     * Called when another thread dirties the buffer after it was published, so an adaptive {@link GlowbotRio} can
+     * wake up and push it
+     */
+    Runnable onDirty;
+
+    /**
+     * Returned by {@link #publishTo(GlowbotLEDBuffer)}
+     */
+    static final int PUBLISH_UNCHANGED = 0, PUBLISH_DONE = 1, PUBLISH_RETRY = 2;
+
     public GlowbotLEDBuffer(int length) {
+        this(length, true);
+    }
+
+    GlowbotLEDBuffer(int length, boolean mirrorToWire) {
         super(length);
+        pixels = new int[length];
+        this.mirrorToWire = mirrorToWire;
+        // Nothing has been pushed yet, so the first frame always counts as changed
+        dirtyStart = 0;
+        dirtyEnd = length - 1;
     }
 
-    /** Iterate over LEDs using cool for-each syntax */
+    /**
+     * Iterate over LEDs using cool for-each syntax. <br>
+     * The same {@link Pixel} is reused for every LED, so iterating does not allocate per pixel.
+     */
     @Override
     public Iterator<Pixel> iterator() {
         return new Iterator<Pixel>() {
+            private final Pixel pixel = new Pixel(GlowbotLEDBuffer.this, 0);
+            private final int length = getLength();
             private int currentIndex = 0;
-            private int endIndex = getLength() - 1;
 
             @Override
             public boolean hasNext() {
-                return currentIndex <= endIndex;
+                return currentIndex < length;
             }
 
             @Override
             public Pixel next() {
-                currentIndex++;
-                return new Pixel(currentIndex, ()-> getLED(currentIndex), (Color color) -> setLED(currentIndex, color));
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pixel.moveTo(currentIndex++);
             }
 
             @Override
@@ -47,6 +130,160 @@ public class GlowbotLEDBuffer extends AddressableLEDBuffer implements Iterable<P
         };
     }
 
+    /**
+     * Visit every LED in the buffer without allocating.
+     *
+     * @param action called with the index and packed color of each LED, in order
+     */
+    public void forEachPixel(IntPixelConsumer action) {
+        for (int idx = 0; idx < pixels.length; idx++) {
+            action.accept(idx, pixels[idx]);
+        }
+    }
+
+    /**
+     * Get the color of an LED without allocating.
+     *
+     * @param index the index of the LED
+     * @return the color packed as {@code 0xRRGGBB}
+     */
+    public int getRGB(int index) {
+        return pixels[index];
+    }
+
+    /**
+     * Set the color of an LED without allocating.
+     *
+     * @param index the index of the LED
+     * @param rgb   the color packed as {@code 0xRRGGBB}
+     */
+    public void setRGB(int index, int rgb) {
+        if (isRenderThread()) {
+            if (writePixel(index, rgb & 0xFFFFFF)) {
+                markDirty(index, index);
+            }
+            return;
+        }
+
+        beginForeignWrite();
+        try {
+            if (writePixel(index, rgb & 0xFFFFFF)) {
+                markForeignDirty(index, index);
+            }
+        } finally {
+            activeForeignWrites.decrementAndGet();
+        }
+    }
+
+    /**
+     * Copy a run of packed colors onto the LEDs [start, start + count) without allocating. LEDs before the first one
+     * that differs are skipped, and the rest are copied in bulk.
+     *
+     * @param start  the index of the first LED
+     * @param rgb    colors packed as {@code 0xRRGGBB}; the top 8 bits must be 0
+     * @param offset the position in {@code rgb} of the first color
+     * @param count  how many LEDs to set
+     */
+    public void setRGB(int start, int[] rgb, int offset, int count) {
+        if (isRenderThread()) {
+            long changed = copyPixels(start, rgb, offset, count);
+            if (changed != CLEAN) {
+                markDirty(rangeStart(changed), rangeEnd(changed));
+            }
+            return;
+        }
+
+        beginForeignWrite();
+        try {
+            long changed = copyPixels(start, rgb, offset, count);
+            if (changed != CLEAN) {
+                markForeignDirty(rangeStart(changed), rangeEnd(changed));
+            }
+        } finally {
+            activeForeignWrites.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+        setRGB(index, LEDUtils.pack(r, g, b));
+    }
+
+    @Override
+    public void setLED(int index, Color color) {
+        setRGB(index, LEDUtils.pack(color));
+    }
+
+    @Override
+    public void setLED(int index, Color8Bit color) {
+        setRGB(index, LEDUtils.pack(color));
+    }
+
+    @Override
+    public Color getLED(int index) {
+        return LEDUtils.toColor(pixels[index]);
+    }
+
+    @Override
+    public Color8Bit getLED8Bit(int index) {
+        return LEDUtils.toColor8Bit(pixels[index]);
+    }
+
+    /**
+     * Set the LEDs in the range [start, end] to a color without allocating.
+     *
+     * @param start the index of the first LED
+     * @param end   the index of the last LED
+     * @param rgb   the color packed as {@code 0xRRGGBB}
+     */
+    public void fill(int start, int end, int rgb) {
+        if (isRenderThread()) {
+            long changed = fillPixels(start, end, rgb & 0xFFFFFF);
+            if (changed != CLEAN) {
+                markDirty(rangeStart(changed), rangeEnd(changed));
+            }
+            return;
+        }
+
+        beginForeignWrite();
+        try {
+            long changed = fillPixels(start, end, rgb & 0xFFFFFF);
+            if (changed != CLEAN) {
+                markForeignDirty(rangeStart(changed), rangeEnd(changed));
+            }
+        } finally {
+            activeForeignWrites.decrementAndGet();
+        }
+    }
+
+    /**
+     * Scale the brightness of the LEDs in the range [start, end] without allocating, i.e. to fade them out
+     *
+     * @param start      the index of the first LED
+     * @param end        the index of the last LED
+     * @param brightness the brightness [0-255], where 255 leaves the colors unchanged and 0 turns them off
+     * @see LEDUtils#scale(int, int)
+     */
+    public void scale(int start, int end, int brightness) {
+        if (isRenderThread()) {
+            long changed = scalePixels(start, end, brightness);
+            if (changed != CLEAN) {
+                markDirty(rangeStart(changed), rangeEnd(changed));
+            }
+            return;
+        }
+
+        beginForeignWrite();
+        try {
+            long changed = scalePixels(start, end, brightness);
+            if (changed != CLEAN) {
+                markForeignDirty(rangeStart(changed), rangeEnd(changed));
+            }
+        } finally {
+            activeForeignWrites.decrementAndGet();
+        }
+    }
+
     /**
      * Set a section of the LED strip in the range [start, end] to a color
      *
@@ -55,26 +292,273 @@ public class GlowbotLEDBuffer extends AddressableLEDBuffer implements Iterable<P
      * @param color {@link Color}
      */
     public void setRange(int start, int end, Color color) {
-        for (int idx = start; idx < end; idx++) {
-            setLED(idx, color);
-        }
+        fill(start, end, LEDUtils.pack(color));
     }
 
     /**
-     * Set a section of the LED strip to a color
+     * Set a section of the LED strip in the range [start, end] to a color
      *
      * @param start the index of the first LED
      * @param end the index of the last LED
      * @param color {@link Color8Bit}
      */
     public void setRange(int start, int end, Color8Bit color) {
-        for (int idx = start; idx < end; idx++) {
-            setLED(idx, color);
+        fill(start, end, LEDUtils.pack(color));
+    }
+
+    /* -------- Dirty Tracking -------- */
+
+    /**
+     * @return whether any LED has changed since {@link #clearDirty()} was last called
+     */
+    public boolean isDirty() {
+        return dirtyStart <= dirtyEnd || foreignDirty.get() != CLEAN;
+    }
+
+    /**
+     * @return the index of the first LED that changed, only meaningful if {@link #isDirty()}
+     */
+    public int getDirtyStart() {
+        return Math.min(dirtyStart, rangeStart(foreignDirty.get()));
+    }
+
+    /**
+     * @return the index of the last LED that changed, only meaningful if {@link #isDirty()}
+     */
+    public int getDirtyEnd() {
+        return Math.max(dirtyEnd, rangeEnd(foreignDirty.get()));
+    }
+
+    /**
+     * Mark the buffer as clean. Call this after the frame has been pushed to the LED strip.
+     */
+    public void clearDirty() {
+        dirtyStart = Integer.MAX_VALUE;
+        dirtyEnd = -1;
+        foreignDirty.set(CLEAN);
+    }
+
+    /**
+     * Widen the dirty range to include [start, end]. Only called from the render thread.
+     */
+    void markDirty(int start, int end) {
+        dirtyStart = Math.min(dirtyStart, start);
+        dirtyEnd = Math.max(dirtyEnd, end);
+    }
+
+    /**
+     * Mark [start, end] as changed without writing to it, so that it is published again. Safe to call from any thread.
+     */
+    void invalidate(int start, int end) {
+        if (isRenderThread()) {
+            markDirty(start, end);
+        } else {
+            markForeignDirty(start, end);
+        }
+    }
+
+    /* -------- Frame Boundaries -------- */
+
+    /**
+     * Called by the render thread before it draws a frame into this buffer
+     */
+    void startRender() {
+        renderThread = Thread.currentThread();
+        renderedCommits = commits.get();
+    }
+
+    /**
+     * Hold back publishing until {@link #commitFrame()}, so that a frame drawn in several calls is never published
+     * half-drawn. Calls can be nested; the buffer is published again once every one has been committed. Safe to call
+     * from any thread.
+     */
+    void beginFrame() {
+        openFrames.incrementAndGet();
+        foreignWriteCount.incrementAndGet();
+    }
+
+    /**
+     * Finish a frame started with {@link #beginFrame()}. Safe to call from any thread.
+     *
+     * @throws GlowbotException if there is no frame to commit
+     */
+    void commitFrame() {
+        int open;
+        do {
+            open = openFrames.get();
+            if (open == 0) {
+                throw new GlowbotException("GlowbotLEDBuffer: commitFrame was called without beginFrame");
+            }
+        } while (!openFrames.compareAndSet(open, open - 1));
+
+        if (open == 1) {
+            commits.incrementAndGet();
+            if (onDirty != null) {
+                // Anything drawn while the frame was open was held back, so it has to be published now
+                onDirty.run();
+            }
         }
     }
 
-    // Just used for creating the iterator
-    private AddressableLEDBuffer getBuffer() {
-        return this;
+    /* -------- Publishing -------- */
+
+    /**
+     * Copy every LED that changed since the last publish into another buffer. This must be called from the render
+     * thread. If another thread was writing while the copy was made, the copy may be a mix of two frames, so
+     * {@link #PUBLISH_RETRY} is returned and the changes stay dirty for the next attempt. The same happens while a
+     * frame is open between {@link #beginFrame()} and {@link #commitFrame()}, and when one was committed after the
+     * render thread started drawing this frame.
+     *
+     * @param front the buffer that is handed to the LED strip
+     * @return {@link #PUBLISH_UNCHANGED} if nothing changed, {@link #PUBLISH_DONE} if {@code front} now holds a
+     * complete frame, or {@link #PUBLISH_RETRY}
+     */
+    int publishTo(GlowbotLEDBuffer front) {
+        // Read the write count first, so that any write that starts after this point is caught by the check below
+        long writeCount = foreignWriteCount.get();
+        if (activeForeignWrites.get() != 0 || openFrames.get() != 0 || commits.get() != renderedCommits) {
+            return PUBLISH_RETRY;
+        }
+
+        long foreign = foreignDirty.getAndSet(CLEAN);
+        int start = Math.min(dirtyStart, rangeStart(foreign));
+        int end = Math.max(dirtyEnd, rangeEnd(foreign));
+        if (start > end) {
+            return PUBLISH_UNCHANGED;
+        }
+
+        front.copyFrom(this, start, end);
+
+        // Anything written after the dirty range was taken is published next time
+        dirtyStart = Integer.MAX_VALUE;
+        dirtyEnd = -1;
+        if (activeForeignWrites.get() != 0 || openFrames.get() != 0 || foreignWriteCount.get() != writeCount) {
+            markDirty(start, end);
+            return PUBLISH_RETRY;
+        }
+        return PUBLISH_DONE;
+    }
+
+    /**
+     * Overwrite [start, end] with the same LEDs from another buffer. Only used on buffers that a single thread writes.
+     */
+    void copyFrom(GlowbotLEDBuffer source, int start, int end) {
+        System.arraycopy(source.pixels, start, pixels, start, end - start + 1);
+        mirrorRange(start, end);
+        markDirty(start, end);
+    }
+
+    /* -------- Private Helpers -------- */
+
+    private boolean isRenderThread() {
+        Thread owner = renderThread;
+        return owner == null || owner == Thread.currentThread();
+    }
+
+    private void beginForeignWrite() {
+        activeForeignWrites.incrementAndGet();
+        foreignWriteCount.incrementAndGet();
+    }
+
+    /**
+     * Store a pixel, returning whether it changed
+     */
+    private boolean writePixel(int index, int rgb) {
+        if (pixels[index] == rgb) {
+            return false;
+        }
+        pixels[index] = rgb;
+        if (mirrorToWire) {
+            super.setRGB(index, LEDUtils.red(rgb), LEDUtils.green(rgb), LEDUtils.blue(rgb));
+        }
+        return true;
+    }
+
+    /**
+     * Fill [start, end], returning the range that actually changed packed by {@link #packRange(int, int)}
+     */
+    private long fillPixels(int start, int end, int rgb) {
+        int changedStart = start, changedEnd = end;
+        while (changedStart <= end && pixels[changedStart] == rgb) {
+            changedStart++;
+        }
+        if (changedStart > end) {
+            return CLEAN;
+        }
+        while (pixels[changedEnd] == rgb) {
+            changedEnd--;
+        }
+
+        FrameOps.fill(pixels, changedStart, changedEnd, rgb);
+        mirrorRange(changedStart, changedEnd);
+        return packRange(changedStart, changedEnd);
+    }
+
+    /**
+     * Scale [start, end] in place, returning the range that may have changed packed by {@link #packRange(int, int)}
+     */
+    private long scalePixels(int start, int end, int brightness) {
+        if (brightness >= 255 || start > end) {
+            return CLEAN;
+        }
+        FrameOps.scale(pixels, pixels, start, end, brightness);
+        mirrorRange(start, end);
+        return packRange(start, end);
+    }
+
+    /**
+     * Copy [start, end] into the wire bytes, if this buffer mirrors them
+     */
+    private void mirrorRange(int start, int end) {
+        if (!mirrorToWire) {
+            return;
+        }
+        for (int idx = start; idx <= end; idx++) {
+            int rgb = pixels[idx];
+            super.setRGB(idx, LEDUtils.red(rgb), LEDUtils.green(rgb), LEDUtils.blue(rgb));
+        }
+    }
+
+    /**
+     * Copy colors into [start, start + count), returning the range that changed packed by {@link #packRange(int, int)}
+     */
+    private long copyPixels(int start, int[] rgb, int offset, int count) {
+        int firstChange = Arrays.mismatch(pixels, start, start + count, rgb, offset, offset + count);
+        if (firstChange < 0) {
+            return CLEAN;
+        }
+
+        int changedStart = start + firstChange;
+        int changedEnd = start + count - 1;
+        System.arraycopy(rgb, offset + firstChange, pixels, changedStart, count - firstChange);
+        mirrorRange(changedStart, changedEnd);
+        return packRange(changedStart, changedEnd);
+    }
+
+    /**
+     * Widen the cross-thread dirty range to include [start, end] without locking
+     */
+    private void markForeignDirty(int start, int end) {
+        long current, updated;
+        do {
+            current = foreignDirty.get();
+            updated = packRange(Math.min(rangeStart(current), start), Math.max(rangeEnd(current), end));
+        } while (current != updated && !foreignDirty.compareAndSet(current, updated));
+
+        if (current == CLEAN && onDirty != null) {
+            onDirty.run();
+        }
+    }
+
+    private static long packRange(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    private static int rangeStart(long range) {
+        return (int) (range >> 32);
+    }
+
+    private static int rangeEnd(long range) {
+        return (int) range;
     }
 }
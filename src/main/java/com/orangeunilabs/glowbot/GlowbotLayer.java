@@ -0,0 +1,200 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.math.MathUtil;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * A set of non-overlapping {@link PatternSection}s that is drawn on top of a {@link GlowbotRio}'s own sections.
+ * Sections on different layers can overlap, so a status flash can run over a rainbow without tearing the rainbow
+ * down. <br>
+ * Only LEDs inside a section with a pattern are drawn; everywhere else the layer is transparent. Layers are stacked in
+ * increasing z-order and combined with their {@link BlendMode} and opacity. Create one with
+ * {@link GlowbotRio#createLayer(int)}.
+ */
+public final class GlowbotLayer {
+    /**
+     * Where this layer is in the stack. The GlowbotRio's own sections are at 0, and higher layers are drawn over lower
+     * ones.
+     */
+    @Getter
+    private final int zOrder;
+    /**
+     * The sections on this layer and the buffer they draw into
+     */
+    final SectionSet sections;
+    /**
+     * The last complete frame published from the layer's buffer. Only touched by the thread rendering frames.
+     */
+    final GlowbotLEDBuffer published;
+    private volatile int opacity = 255;
+    private volatile BlendMode blendMode = BlendMode.AlphaOver;
+
+    GlowbotLayer(GlowbotRio glowbot, GlowbotLEDBuffer buffer, int zOrder) {
+        this.zOrder = zOrder;
+        sections = new SectionSet(buffer, glowbot::requestFrame);
+        published = new GlowbotLEDBuffer(buffer.getLength(), false);
+    }
+
+    /**
+     * @return how opaque this layer is [0-255]. A layer with an opacity of 0 is not drawn at all, and its patterns do
+     * not run until the opacity is raised again.
+     */
+    public int getOpacity() {
+        return opacity;
+    }
+
+    /**
+     * @param opacity how opaque this layer is [0-255], clamped
+     */
+    public void setOpacity(int opacity) {
+        opacity = MathUtil.clamp(opacity, 0, 255);
+        if (this.opacity != opacity) {
+            this.opacity = opacity;
+            sections.invalidateSections();
+        }
+    }
+
+    public BlendMode getBlendMode() {
+        return blendMode;
+    }
+
+    public void setBlendMode(@NonNull BlendMode blendMode) {
+        if (this.blendMode != blendMode) {
+            this.blendMode = blendMode;
+            sections.invalidateSections();
+        }
+    }
+
+    /**
+     * Get a new section on this layer that does not overlap with the layer's existing sections
+     *
+     * @param start the index of the first LED in the requested section
+     * @param end   the index of the last LED in the requested section
+     * @return if there are no overlapping sections, a new {@link PatternSection}. if there is overlap, returns null.
+     * @see GlowbotRio#getSection(int, int, boolean)
+     */
+    public PatternSection getSection(int start, int end) {
+        return getSection(start, end, false);
+    }
+
+    /**
+     * Get a new section on this layer.
+     *
+     * @param start     the index of the first LED in the requested section
+     * @param end       the index of the last LED in the requested section
+     * @param supersede if the requested section overlaps with sections on this layer, take over the overlapping LEDs
+     *                  if this is true. If false, return null.
+     * @return null or a new {@link PatternSection}, depending on the value of `supersede`.
+     * @see GlowbotRio#getSection(int, int, boolean)
+     */
+    public PatternSection getSection(int start, int end, boolean supersede) {
+        return sections.getSection(start, end, supersede);
+    }
+
+    /**
+     * Remove a section from this layer. On any layer but the bottom one, its LEDs become transparent.
+     *
+     * @param section the section to remove
+     * @return whether the section was removed; false if it was not on this layer
+     */
+    public boolean removeSection(PatternSection section) {
+        return sections.removeSection(section);
+    }
+
+    /**
+     * Find the section on this layer that controls an LED
+     *
+     * @param index the index of the LED in the strip
+     * @return the section, or null if the LED is not in any section on this layer
+     */
+    public PatternSection getSectionAt(int index) {
+        return sections.getSectionAt(index);
+    }
+
+    /**
+     * @return the sections on this layer, in order along the strip. This is a snapshot, so it is safe to use while
+     * the notifier is running.
+     */
+    public List<PatternSection> getSections() {
+        return sections.getSections();
+    }
+
+    /**
+     * @return the buffer this layer's sections draw into
+     */
+    GlowbotLEDBuffer getBuffer() {
+        return sections.buffer;
+    }
+
+    /**
+     * Copy what was drawn since the last frame into {@link #published}. Only called from the render thread.
+     *
+     * @return see {@link GlowbotLEDBuffer#publishTo(GlowbotLEDBuffer)}
+     */
+    int publish() {
+        return sections.buffer.publishTo(published);
+    }
+
+    /**
+     * @return whether the layer has an opacity of 0, so its patterns do not have to run
+     */
+    boolean isHidden() {
+        return opacity == 0;
+    }
+
+    /**
+     * @return whether this layer hides everything underneath it in [start, end], so the layers below it do not have
+     * to be composited there
+     */
+    boolean hidesBelow(int start, int end) {
+        int layerOpacity = opacity;
+        BlendMode mode = blendMode;
+        if (!(mode == BlendMode.Replace && layerOpacity > 0 || mode == BlendMode.AlphaOver && layerOpacity == 255)) {
+            return false;
+        }
+
+        // Every LED in the range has to be in a section with a pattern
+        SectionRegistry current = sections.registry;
+        int next = start;
+        for (int position = current.lowerBound(start); position < current.size() && next <= end; position++) {
+            PatternSection section = current.get(position);
+            if (section.getStartIndex() > next || section.getCurrentPattern() == null) {
+                return false;
+            }
+            next = section.getEndIndex() + 1;
+        }
+        return next > end;
+    }
+
+    /**
+     * Blend the LEDs [start, end] of this layer into a frame. LEDs that are not in a section with a pattern are
+     * left alone.
+     */
+    void compositeInto(int[] frame, int start, int end) {
+        int layerOpacity = opacity;
+        if (layerOpacity == 0) {
+            return;
+        }
+        BlendMode mode = blendMode;
+        SectionRegistry current = sections.registry;
+
+        for (int position = current.lowerBound(start); position < current.size(); position++) {
+            PatternSection section = current.get(position);
+            if (section.getStartIndex() > end) {
+                break;
+            }
+            if (section.getCurrentPattern() != null) {
+                mode.composite(published.pixels, frame, Math.max(start, section.getStartIndex()),
+                        Math.min(end, section.getEndIndex()), layerOpacity);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GlowbotLayer (z: %d, opacity: %d, blend: %s)", zOrder, opacity, blendMode);
+    }
+}
@@ -1,38 +1,156 @@
 package com.orangeunilabs.glowbot;
 
 
-import edu.wpi.first.wpilibj.AddressableLED;
+import com.orangeunilabs.glowbot.output.AddressableLEDOutput;
+import com.orangeunilabs.glowbot.output.LEDOutput;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.sim.FrameRecorder;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import lombok.Getter;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * The GlowbotRio class is the core abstraction for using the Rio to drive LEDs directly.
  * It contains the buffer, periodic methods, section logic, etc
+ * <p>
+ * Frames are double-buffered: patterns and robot code draw into a back buffer, and at the end of each frame the
+ * changed LEDs are copied into a front buffer that is handed to the LED strip. Robot code can draw and create
+ * sections from its own thread while the notifier is running; neither side ever waits on the other, and a frame that
+ * was copied while robot code was halfway through a call is held back until the next frame. Each call is atomic on its
+ * own; to draw a frame in several calls without it ever being pushed half-drawn, wrap them in {@link #beginFrame()}
+ * and {@link #commitFrame()}.
+ * <p>
+ * Sections on the strip itself cannot overlap, but {@link GlowbotLayer layers} can be stacked on top of them (see
+ * {@link #createLayer(int)}), each with its own sections, opacity, and {@link BlendMode}.
+ * <p>
+ * Frames are sent to an {@link LEDOutput}: the roboRIO's own PWM output by default, or i.e. a coprocessor (see
+ * {@link #GlowbotRio(GlowbotRioConfig, LEDOutput)}).
+ * <p>
+ * The roboRIO can only drive one LED strip, so separate LED runs have to be daisy-chained. {@link VirtualStrip}s
+ * (see {@link #createVirtualStrip(String, StripMapping)}) let each run be treated as its own strip.
+ * <p>
+ * The current each frame draws is estimated as it is pushed, and frames over the config's
+ * {@link GlowbotRioConfig#setPowerBudget(double) power budget} are dimmed to fit. Patterns draw in plain RGB; the
+ * config's gamma, white balance, and {@link ColorOrder} are applied as frames are sent, optionally with
+ * {@link GlowbotRioConfig#setTemporalDithering(boolean) temporal dithering}.
  */
 public class GlowbotRio implements AutoCloseable, GlowbotControllable {
     public static final int PERIODIC_UPDATE_FREQUENCY_HERTZ = 50;
-    private static int instanceCount = 0;
+
+    /**
+     * Why the updater is running at its current rate
+     */
+    public enum UpdateRateReason {
+        /** The updater is not running */
+        Stopped,
+        /** The rate was set with {@link GlowbotRio#start(int)} */
+        Fixed,
+        /** Every pattern is static and nothing has been drawn, so no frames are being rendered */
+        Idle,
+        /** The updater is waiting for the next timed change, i.e. a blink, or to resend the frame to the output */
+        Waiting,
+        /** At least one pattern changes every frame, so frames are rendered at the maximum adaptive rate */
+        Animating,
+        /** Same as Animating, but the rate was capped by how fast the strip can physically be refreshed */
+        RefreshLimited
+    }
+
     @Getter
     public final int length;
     public final int port;
     private final String name;
 
-    private final AddressableLED ledStrip;
+    private final LEDOutput output;
+    /**
+     * Drawn into by patterns and robot code
+     */
     private final GlowbotLEDBuffer buffer;
+    /**
+     * Only touched by the thread rendering frames, and handed to the output. Its dirty range is what changed since the
+     * last frame that was sent.
+     */
+    private final GlowbotLEDBuffer frontBuffer;
+    /**
+     * Corrects frames for the LED chip before they are sent, or null if the config does not change their colors or
+     * they are dithered
+     */
+    private final ColorCorrection colorCorrection;
+    /**
+     * Corrects frames with more precision and dithers them over time, or null if the config does not turn it on
+     */
+    private final TemporalDither dither;
+    /**
+     * Estimates the current each frame draws and dims frames that are over the power budget
+     */
+    private final PowerLimiter powerLimiter;
     private final Notifier notifier;
-    private final ArrayList<PatternSection> sections;
+    /**
+     * The sections on the strip itself, drawn into {@link #buffer}
+     */
+    private final GlowbotLayer baseLayer;
+    /**
+     * The layers above the base layer in z-order. Copy-on-write under layerLock, like the section registries.
+     */
+    private volatile GlowbotLayer[] layers = new GlowbotLayer[0];
+    private final Object layerLock = new Object();
+    private final LayerCompositor compositor;
+    /**
+     * Copy-on-write under layerLock, like the layers
+     */
+    private volatile VirtualStrip[] virtualStrips = new VirtualStrip[0];
+    /**
+     * The physical LEDs that belong to a virtual strip. Guarded by layerLock.
+     */
+    private final BitSet virtualLEDs = new BitSet();
     private final PatternSection defaultSection;
+    private final FrameContext frame = new FrameContext();
+    private final double maxRefreshRateHertz;
     private boolean notifierIsRunning = false;
     private boolean outputStarted = false;
     private int currentNotifierFrequency = PERIODIC_UPDATE_FREQUENCY_HERTZ;
 
+    /* Adaptive updater state. Scheduling is guarded by scheduleLock since user code can request frames */
+    private final Object scheduleLock = new Object();
+    private volatile boolean adaptive = false;
+    private boolean adaptiveRefreshLimited = false;
+    private double minFramePeriod;
+    private double scheduledWakeTime = LEDPattern.NEVER;
+    /**
+     * Whether a frame was requested since the last one was scheduled. A request that lands while a frame is being
+     * rendered would otherwise be lost if the frame had already looked at the buffers. Guarded by scheduleLock.
+     */
+    private boolean frameRequested = false;
+    private volatile Thread notifierThread;
+    private volatile double updateRateHertz = 0;
+    private volatile UpdateRateReason updateRateReason = UpdateRateReason.Stopped;
+    private volatile FrameMetrics metrics = null;
+    private volatile FrameRecorder recorder = null;
+    /**
+     * The recorder the last frame was recorded to. Only touched by the thread rendering frames.
+     */
+    private FrameRecorder lastRecorder = null;
+    private volatile long pushedFrameCount = 0, skippedFrameCount = 0;
+    /**
+     * See {@link LEDOutput#getKeepAlivePeriodSeconds()}
+     */
+    private final double keepAlivePeriod;
+    /**
+     * The buffer that was last handed to the output, which holds the frame on the strip, and when it was sent. Only
+     * touched by the thread rendering frames.
+     */
+    private GlowbotLEDBuffer lastSent = null;
+    private double lastSendTime = 0;
+
     /**
      * @param port   the PWM port that the LED Strip is attached to.
      * @param length the length of the LED Strip (number of pixels). Setting the length of an LED Strip is an
@@ -47,33 +165,46 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
      * @param config the config
      */
     public GlowbotRio(GlowbotRioConfig config) {
-        instanceCount++;
+        this(config, new AddressableLEDOutput(config));
+    }
 
+    /**
+     * Create a GlowbotRio that sends its frames somewhere other than the roboRIO's PWM output, i.e. to a coprocessor
+     * driving a longer or faster strip. Patterns and sections work exactly the same.
+     *
+     * @param config the config. Only the length is used unless the output uses more of it.
+     * @param output where to send frames. It is opened for the config's length and closed with this GlowbotRio.
+     */
+    public GlowbotRio(GlowbotRioConfig config, LEDOutput output) {
         this.port = config.port;
         this.length = config.length;
+        this.output = output;
 
-        name = String.format("GlowbotRio@%s (port: %d, length: %d)", super.hashCode(), port, length);
-
-        if (instanceCount > 1) {
-            // WPILib & the roboRio currently only support running 1 Addressable LED strip directly.
-            DriverStation.reportWarning("GlowbotRio Warning: More than 1 instance created! This is not supported by the roboRio!", true);
-        }
+        name = String.format("GlowbotRio@%s (%s, length: %d)", super.hashCode(), output, length);
 
         // Create low level resources
-        ledStrip = new AddressableLED(port);
-        ledStrip.setLength(length);
-        buffer = new GlowbotLEDBuffer(length);
-        defaultSection = new PatternSection(buffer, 0, length - 1, null);
-
-        if (config.hasAlternateBitTiming) {
-            config.configureBitTiming(ledStrip);
+        output.open(length);
+        buffer = new GlowbotLEDBuffer(length, false);
+        frontBuffer = new GlowbotLEDBuffer(length, false);
+        if (config.isTemporalDithering() && !config.hasFractionalCorrection()) {
+            DriverStation.reportWarning("GlowbotRio Warning: Temporal dithering is on, but without a gamma or white " +
+                    "balance there is nothing to dither. It is left off.", false);
         }
+        ColorOrder wireOrder = output.getWireOrder();
+        dither = config.isTemporalDithering() && config.hasFractionalCorrection()
+                ? new TemporalDither(config, wireOrder) : null;
+        colorCorrection = dither == null && config.hasColorCorrection(wireOrder)
+                ? new ColorCorrection(config, wireOrder) : null;
+        powerLimiter = new PowerLimiter(config);
+        baseLayer = new GlowbotLayer(this, buffer, 0);
+        compositor = new LayerCompositor(baseLayer);
+        defaultSection = new PatternSection(buffer, 0, length - 1, null);
+        maxRefreshRateHertz = output.getMaxRefreshRateHertz();
+        keepAlivePeriod = output.getKeepAlivePeriodSeconds();
 
         notifier = new Notifier(this::notifierPeriodic);
         notifier.setName(name);
 
-        sections = new ArrayList<>();
-
         startOutput();
     }
 
@@ -98,31 +229,76 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
         double frequencySeconds = (double) 1 / hertz;
         currentNotifierFrequency = hertz;
 
-        notifier.startPeriodic(frequencySeconds);
+        synchronized (scheduleLock) {
+            adaptive = false;
+            notifier.startPeriodic(frequencySeconds);
+            setUpdateRate(hertz, UpdateRateReason.Fixed);
+        }
         notifierIsRunning = true;
     }
 
+    /**
+     * Start the built-in notifier in adaptive mode, with a maximum rate of 50Hz. <br>
+     * This will implicitly start output if it has been stopped.
+     *
+     * @see #startAdaptive(double)
+     */
+    public void startAdaptive() {
+        startAdaptive(PERIODIC_UPDATE_FREQUENCY_HERTZ);
+    }
+
+    /**
+     * Start the built-in notifier in adaptive mode. Instead of running at a fixed rate, the updater only renders a frame
+     * when a pattern is due to change (see {@link LEDPattern#getNextRunTime(FrameContext)}) or something was drawn.
+     * When every pattern is static it stops rendering entirely, and while something animates it runs at
+     * {@code maxHertz}, capped at how fast the strip can physically be refreshed. <br>
+     * This will implicitly start output if it has been stopped.
+     *
+     * @param maxHertz the fastest the updater may run, in Hertz. Must be greater than 0.
+     */
+    public void startAdaptive(double maxHertz) {
+        if (!(maxHertz > 0)) {
+            throw new GlowbotException(String.format("GlowbotRio: Invalid adaptive update rate of %s Hz, must be greater than 0", maxHertz));
+        }
+        synchronized (scheduleLock) {
+            adaptiveRefreshLimited = maxHertz > maxRefreshRateHertz;
+            minFramePeriod = 1 / Math.min(maxHertz, maxRefreshRateHertz);
+            adaptive = true;
+            scheduledWakeTime = Timer.getFPGATimestamp();
+            notifier.startSingle(0);
+        }
+        notifierIsRunning = true;
+
+        if (!outputStarted) {
+            startOutput();
+        }
+    }
+
     /**
      * Stops the built-in notifier. LED Output is not stopped.
      */
     public void stop() {
-        notifier.stop();
+        synchronized (scheduleLock) {
+            adaptive = false;
+            notifier.stop();
+            setUpdateRate(0, UpdateRateReason.Stopped);
+        }
         notifierIsRunning = false;
     }
 
     /**
-     * This starts the output of the LED strip by calling {@link AddressableLED#start()}
+     * This starts the output of the LED strip by calling {@link LEDOutput#start()}
      */
     public void startOutput() {
-        ledStrip.start();
+        output.start();
         outputStarted = true;
     }
 
     /**
-     * This stops the output to the LED strip by calling {@link AddressableLED#stop()}
+     * This stops the output to the LED strip by calling {@link LEDOutput#stop()}
      */
     public void stopOutput() {
-        ledStrip.stop();
+        output.stop();
         outputStarted = false;
     }
 
@@ -136,9 +312,7 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
         if (notifierIsRunning) {
             throw new GlowbotException("You cannot use the built-in periodic functionality & the periodic method at the same time!");
         }
-        // Run all of the currently running patterns to get the latest data in the buffer
-        sections.forEach(PatternSection::periodic);
-        ledStrip.setData(buffer);
+        updateFrame();
     }
 
     /**
@@ -146,9 +320,264 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
      * notifier is used.
      */
     private void notifierPeriodic() {
-        // Run all of the currently running patterns to get the latest data in the buffer
-        sections.forEach(PatternSection::periodic);
-        ledStrip.setData(buffer);
+        notifierThread = Thread.currentThread();
+        updateFrame();
+        if (adaptive) {
+            scheduleNextFrame();
+        }
+    }
+
+    /**
+     * In adaptive mode, work out when the next frame is needed and arm the notifier for it.
+     */
+    private void scheduleNextFrame() {
+        double now = frame.getTimestamp();
+        double nextRunTime = baseLayer.sections.getNextRunTime(now);
+        for (VirtualStrip strip : virtualStrips) {
+            nextRunTime = Math.min(nextRunTime, strip.sections.getNextRunTime(now));
+        }
+        for (GlowbotLayer layer : layers) {
+            if (layer.isHidden()) {
+                // Not rendered, so its patterns never need a frame
+                continue;
+            }
+            nextRunTime = Math.min(nextRunTime, layer.sections.getNextRunTime(now));
+        }
+        if (dither != null && dither.isDithering()) {
+            nextRunTime = now;
+        }
+        if (keepAlivePeriod > 0 && lastSent != null) {
+            nextRunTime = Math.min(nextRunTime, lastSendTime + keepAlivePeriod);
+        }
+
+        synchronized (scheduleLock) {
+            if (!adaptive) {
+                return;
+            }
+
+            if (frameRequested) {
+                // Something was drawn or changed after this frame checked for it
+                frameRequested = false;
+                nextRunTime = now;
+            }
+            if (nextRunTime == LEDPattern.NEVER) {
+                scheduledWakeTime = LEDPattern.NEVER;
+                setUpdateRate(0, UpdateRateReason.Idle);
+                return;
+            }
+
+            double delay = Math.max(nextRunTime - now, minFramePeriod);
+            scheduledWakeTime = now + delay;
+            notifier.startSingle(delay);
+
+            if (delay > minFramePeriod) {
+                setUpdateRate(1 / delay, UpdateRateReason.Waiting);
+            } else {
+                setUpdateRate(1 / minFramePeriod, adaptiveRefreshLimited
+                        ? UpdateRateReason.RefreshLimited : UpdateRateReason.Animating);
+            }
+        }
+    }
+
+    /**
+     * @return whether the output needs the frame on the strip sent again, since nothing was sent for too long
+     */
+    private boolean isKeepAliveDue() {
+        return keepAlivePeriod > 0 && lastSent != null && frame.getTimestamp() - lastSendTime >= keepAlivePeriod;
+    }
+
+    /**
+     * Start drawing a frame in several calls. Until {@link #commitFrame()}, nothing new is pushed to the strip: not what
+     * robot code draws, and not what patterns, layers, or virtual strips draw either, so keep frames short. Sections
+     * added, removed, or given new patterns in between show up together in the same frame. Calls can be nested. Safe to
+     * call from any thread.
+     *
+     * <pre>{@code
+     * glowbot.beginFrame();
+     * try {
+     *     glowbot.fill(0, 29, 0xFF0000);
+     *     glowbot.fill(30, 59, 0x0000FF);
+     * } finally {
+     *     glowbot.commitFrame();
+     * }
+     * }</pre>
+     */
+    public void beginFrame() {
+        buffer.beginFrame();
+    }
+
+    /**
+     * Finish a frame started with {@link #beginFrame()}. Once every open frame is committed, everything drawn since is
+     * pushed together on the next frame.
+     *
+     * @throws GlowbotException if there is no frame to commit
+     */
+    public void commitFrame() {
+        buffer.commitFrame();
+    }
+
+    /**
+     * In adaptive mode, make sure a frame is rendered soon. This is called automatically when something is drawn or a
+     * section's pattern changes; it does nothing in any other mode.
+     */
+    public void requestFrame() {
+        // Anything drawn while rendering is picked up when the next frame is scheduled
+        if (!adaptive || Thread.currentThread() == notifierThread) {
+            return;
+        }
+
+        synchronized (scheduleLock) {
+            if (!adaptive) {
+                return;
+            }
+
+            frameRequested = true;
+            double now = Timer.getFPGATimestamp();
+            if (scheduledWakeTime > now + minFramePeriod) {
+                scheduledWakeTime = now + minFramePeriod;
+                notifier.startSingle(minFramePeriod);
+            }
+        }
+    }
+
+    private void setUpdateRate(double hertz, UpdateRateReason reason) {
+        updateRateHertz = hertz;
+        updateRateReason = reason;
+    }
+
+    /**
+     * Render one frame and push it to the LED strip, unless nothing in it changed since the last push.
+     */
+    private void updateFrame() {
+        // Read once so that disabled metrics cost a single null check per frame
+        FrameMetrics frameMetrics = metrics;
+        long startNanos = frameMetrics != null ? System.nanoTime() : 0;
+        double period = notifierIsRunning && updateRateHertz > 0 ? 1 / updateRateHertz : 0;
+
+        // Run all of the currently running patterns to get the latest data in the buffers
+        frame.advance(Timer.getFPGATimestamp());
+        GlowbotLayer[] overlays = layers;
+        baseLayer.sections.render(frame, frameMetrics != null);
+        for (VirtualStrip strip : virtualStrips) {
+            strip.sections.render(frame, frameMetrics != null);
+            strip.mapInto(buffer);
+        }
+        for (GlowbotLayer layer : overlays) {
+            if (layer.isHidden()) {
+                // Nothing it draws would show
+                continue;
+            }
+            layer.sections.render(frame, frameMetrics != null);
+        }
+
+        long renderedNanos = frameMetrics != null ? System.nanoTime() : 0;
+        long setDataNanos = 0;
+        boolean sentData = false;
+        int published = compositor.publishTo(overlays, frontBuffer);
+        boolean pushed = published == GlowbotLEDBuffer.PUBLISH_DONE;
+        // LEDs that are being dithered change every frame, even if nothing was drawn
+        pushed |= dither != null && dither.isDithering();
+        if (pushed) {
+            // Correct before limiting, since the current drawn depends on the values the LEDs actually get
+            GlowbotLEDBuffer sent = frontBuffer;
+            if (dither != null) {
+                sent = dither.dither(frontBuffer);
+            } else if (colorCorrection != null) {
+                sent = colorCorrection.correct(frontBuffer);
+            }
+            sent = powerLimiter.limit(sent);
+            long setDataStart = frameMetrics != null ? System.nanoTime() : 0;
+            output.setData(sent.pixels, sent.getDirtyStart(), sent.getDirtyEnd());
+            setDataNanos = frameMetrics != null ? System.nanoTime() - setDataStart : 0;
+            sentData = true;
+            sent.clearDirty();
+            lastSent = sent;
+            lastSendTime = frame.getTimestamp();
+            pushedFrameCount++;
+        } else {
+            if (published == GlowbotLEDBuffer.PUBLISH_UNCHANGED && isKeepAliveDue()) {
+                // Nothing is waiting to be sent, so the last buffer sent still holds exactly what is on the strip
+                long setDataStart = frameMetrics != null ? System.nanoTime() : 0;
+                output.setData(lastSent.pixels, 0, length - 1);
+                setDataNanos = frameMetrics != null ? System.nanoTime() - setDataStart : 0;
+                sentData = true;
+                lastSendTime = frame.getTimestamp();
+            }
+            skippedFrameCount++;
+        }
+
+        FrameRecorder frameRecorder = recorder;
+        if (frameRecorder != null && lastSent != null && (pushed || frameRecorder != lastRecorder)) {
+            // A new recorder starts with what is on the strip, even if nothing changed this frame
+            frameRecorder.record(frame.getTimestamp(), lastSent.pixels);
+        }
+        lastRecorder = frameRecorder;
+
+        if (frameMetrics != null) {
+            frameMetrics.recordFrame(startNanos, renderedNanos, System.nanoTime(), sentData, setDataNanos, period);
+        }
+    }
+
+    /**
+     * Start measuring how long each frame takes to render and push. When metrics are disabled (the default), they
+     * cost nothing beyond a null check per frame.
+     *
+     * @return the metrics, which can be published with {@link FrameMetrics#publishTo} and {@link FrameMetrics#publish()}
+     */
+    public FrameMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new FrameMetrics(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * Stop measuring frame timing
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * @return the frame metrics, or null if they are not enabled
+     * @see #enableMetrics()
+     */
+    public FrameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Record every frame pushed to the LED strip from now on, i.e. to see what patterns look like after a simulation
+     * run or a match. Frames are recorded exactly as they are handed to the output, after power limiting and color
+     * correction. Recording only copies each frame into the recorder's ring buffer, so it is cheap enough to leave on.
+     *
+     * @param recorder the recorder, or null to stop recording. The previous recorder is not closed.
+     * @see FrameRecorder#toFile(java.io.File, int)
+     */
+    public void setRecorder(FrameRecorder recorder) {
+        this.recorder = recorder;
+        requestFrame();
+    }
+
+    /**
+     * @return the recorder frames are being recorded to, or null
+     */
+    public FrameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * @return the number of frames that were pushed to the LED strip because something in them changed
+     */
+    public long getPushedFrameCount() {
+        return pushedFrameCount;
+    }
+
+    /**
+     * @return the number of frames that were not pushed to the LED strip because they were identical to the last one
+     */
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
     }
 
     /**
@@ -157,7 +586,50 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
      * @return the frequency in Hertz if the notifier is running, otherwise, -1
      */
     public int getNotifierFrequency() {
-        return notifierIsRunning ? currentNotifierFrequency : -1;
+        if (!notifierIsRunning) {
+            return -1;
+        }
+        return adaptive ? (int) Math.round(updateRateHertz) : currentNotifierFrequency;
+    }
+
+    /**
+     * @return the current the strip is estimated to draw with the last frame pushed to it, in milliamps
+     * @see GlowbotRioConfig#setCurrentModel(double, double)
+     */
+    public double getEstimatedCurrentMilliamps() {
+        return powerLimiter.getEstimatedMilliamps();
+    }
+
+    /**
+     * @return the brightness the last frame pushed to the strip was scaled by to stay within the power budget [0-255],
+     * where 255 is not dimmed
+     * @see GlowbotRioConfig#setPowerBudget(double)
+     */
+    public int getPowerScale() {
+        return powerLimiter.getAppliedScale();
+    }
+
+    /**
+     * @return the rate frames are currently being rendered at in Hertz. In adaptive mode, this changes as patterns
+     * start and stop animating.
+     */
+    public double getUpdateRateHertz() {
+        return updateRateHertz;
+    }
+
+    /**
+     * @return why the updater is running at {@link #getUpdateRateHertz()}
+     */
+    public UpdateRateReason getUpdateRateReason() {
+        return updateRateReason;
+    }
+
+    /**
+     * @return the fastest rate frames can physically be sent to this strip, in Hertz
+     * @see LEDOutput#getMaxRefreshRateHertz()
+     */
+    public double getMaxRefreshRateHertz() {
+        return maxRefreshRateHertz;
     }
 
     /**
@@ -180,24 +652,190 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
      *                  greater than the end index
      * @param end       the index of the last LED in the requested section. This cannot be less than the start index, or
      *                  greater than the length - 1.
-     * @param supersede if the requested pattern overlaps with those patterns, delete those patterns if this is true. if false, return null
+     * @param supersede if the requested section overlaps with existing sections, take over the overlapping LEDs if
+     *                  this is true. Sections that are only partly covered are split, and the parts that are left
+     *                  keep their name (parts shorter than 2 LEDs are dropped). Patterns keep state for the section
+     *                  they run on, so only one part keeps the pattern: the part before the new section, or the part
+     *                  after it if that is the only one. The other part is left without a pattern. If false, return
+     *                  null.
      * @return null or a new {@link PatternSection}, depending on the value of `supersede`.
+     * @throws GlowbotException if the section would cover LEDs that belong to a virtual strip
      */
     public PatternSection getSection(int start, int end, boolean supersede) {
-        for (PatternSection section : sections) {
-            boolean doesOverlap = section.overlaps(start, end);
-            if (doesOverlap) {
-                if (supersede) {
-                    sections.remove(section);
-                } else {
-                    return null;
+        synchronized (layerLock) {
+            // Both would draw on the same LEDs every frame, and the virtual strip would silently win
+            int claimed = virtualLEDs.nextSetBit(Math.max(start, 0));
+            if (claimed >= 0 && claimed <= end) {
+                throw new GlowbotException(String.format("Glowbot(VirtualStrip): Physical LED %s is already part of " +
+                        "a virtual strip", claimed));
+            }
+            return baseLayer.getSection(start, end, supersede);
+        }
+    }
+
+    /**
+     * Remove a section so that its LEDs can be used by a new one. The LEDs keep whatever they last displayed.
+     *
+     * @param section the section to remove
+     * @return whether the section was removed; false if it did not belong to this GlowbotRio
+     */
+    public boolean removeSection(PatternSection section) {
+        return baseLayer.removeSection(section);
+    }
+
+    /**
+     * Find the section that controls an LED. This is a binary search, so it stays fast with many sections.
+     *
+     * @param index the index of the LED in the strip
+     * @return the section, or null if the LED is not in any section
+     */
+    public PatternSection getSectionAt(int index) {
+        return baseLayer.getSectionAt(index);
+    }
+
+    /**
+     * @return the sections that have been created with {@link #getSection(int, int)}, in order along the strip. This
+     * is a snapshot, so it is safe to use while the notifier is running. Sections on layers are not included.
+     */
+    public List<PatternSection> getSections() {
+        return baseLayer.getSections();
+    }
+
+    /**
+     * Create a layer that is drawn over this strip's own sections. Sections on a layer may overlap sections on the
+     * strip and on other layers; only LEDs in a layer section that has a pattern are drawn, and the rest of the layer
+     * is transparent.
+     *
+     * @param zOrder where the layer goes in the stack. Layers with a higher z-order are drawn over lower ones, and
+     *               layers with the same z-order are drawn in the order they were created. The strip's own sections
+     *               are at 0, so this must be 1 or greater.
+     * @return the new layer
+     */
+    public GlowbotLayer createLayer(int zOrder) {
+        if (zOrder < 1) {
+            throw new GlowbotException(String.format("GlowbotRio: Invalid layer z-order %s, must be 1 or greater", zOrder));
+        }
+        GlowbotLayer layer = new GlowbotLayer(this, new GlowbotLEDBuffer(length, false), zOrder);
+
+        synchronized (layerLock) {
+            GlowbotLayer[] current = layers;
+            int position = 0;
+            while (position < current.length && current[position].getZOrder() <= zOrder) {
+                position++;
+            }
+
+            GlowbotLayer[] updated = new GlowbotLayer[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            updated[position] = layer;
+            System.arraycopy(current, position, updated, position + 1, current.length - position);
+            layers = updated;
+        }
+        requestFrame();
+        return layer;
+    }
+
+    /**
+     * Remove a layer, uncovering whatever it was drawn over
+     *
+     * @param layer the layer to remove
+     * @return whether the layer was removed; false if it did not belong to this GlowbotRio
+     */
+    public boolean removeLayer(GlowbotLayer layer) {
+        synchronized (layerLock) {
+            GlowbotLayer[] current = layers;
+            int position = Arrays.asList(current).indexOf(layer);
+            if (position < 0) {
+                return false;
+            }
+
+            GlowbotLayer[] updated = new GlowbotLayer[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+            layers = updated;
+        }
+        requestFrame();
+        return true;
+    }
+
+    /**
+     * @return the layers above this strip's own sections, in the order they are drawn
+     */
+    public List<GlowbotLayer> getLayers() {
+        return Collections.unmodifiableList(Arrays.asList(layers));
+    }
+
+    /**
+     * Create a virtual strip out of some of this strip's LEDs. It has its own indexes and sections, and is drawn on
+     * like a separate strip. The strip's own sections and its virtual strips never share LEDs.
+     *
+     * @param name    a name for the strip, i.e. "underglow"
+     * @param mapping the physical LEDs that make up the virtual strip, in order. They cannot be part of another
+     *                virtual strip or of one of this strip's own sections.
+     * @return the new virtual strip
+     */
+    public VirtualStrip createVirtualStrip(String name, StripMapping mapping) {
+        int[] physicalIndexes = mapping.toIndexTable();
+        if (physicalIndexes.length < 2) {
+            throw new GlowbotException("Glowbot(VirtualStrip): Virtual strips must be 2 pixels or greater.");
+        }
+
+        synchronized (layerLock) {
+            BitSet claimed = new BitSet(length);
+            for (int idx : physicalIndexes) {
+                if (idx < 0 || idx >= length) {
+                    throw new GlowbotException(String.format("Glowbot(VirtualStrip): Invalid physical index %s", idx));
+                } else if (claimed.get(idx) || virtualLEDs.get(idx)) {
+                    throw new GlowbotException(String.format("Glowbot(VirtualStrip): Physical LED %s is already " +
+                            "part of a virtual strip", idx));
+                }
+                PatternSection owner = baseLayer.getSectionAt(idx);
+                if (owner != null) {
+                    throw new GlowbotException(String.format("Glowbot(VirtualStrip): Physical LED %s is already " +
+                            "part of section %s", idx, owner));
                 }
+                claimed.set(idx);
             }
+
+            VirtualStrip strip = new VirtualStrip(this, name, physicalIndexes);
+            virtualLEDs.or(claimed);
+            VirtualStrip[] current = virtualStrips;
+            VirtualStrip[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = strip;
+            virtualStrips = updated;
+            return strip;
+        }
+    }
+
+    /**
+     * Remove a virtual strip, so its LEDs can be used by another one. The LEDs keep whatever they last displayed.
+     *
+     * @param strip the strip to remove
+     * @return whether the strip was removed; false if it did not belong to this GlowbotRio
+     */
+    public boolean removeVirtualStrip(VirtualStrip strip) {
+        synchronized (layerLock) {
+            VirtualStrip[] current = virtualStrips;
+            int position = Arrays.asList(current).indexOf(strip);
+            if (position < 0) {
+                return false;
+            }
+
+            VirtualStrip[] updated = new VirtualStrip[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+            virtualStrips = updated;
+            for (int idx = 0; idx < strip.getLength(); idx++) {
+                virtualLEDs.clear(strip.getPhysicalIndex(idx));
+            }
+            return true;
         }
+    }
 
-        PatternSection newSection = new PatternSection(buffer, start, end, null);
-        sections.add(newSection);
-        return newSection;
+    /**
+     * @return the virtual strips that have been created on this strip
+     */
+    public List<VirtualStrip> getVirtualStrips() {
+        return Collections.unmodifiableList(Arrays.asList(virtualStrips));
     }
 
     /* --------- Implemented Methods --------- */
@@ -232,6 +870,36 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
         defaultSection.setRange(start, end, color);
     }
 
+    @Override
+    public int getRGB(int index) {
+        return defaultSection.getRGB(index);
+    }
+
+    @Override
+    public void setRGB(int index, int rgb) {
+        defaultSection.setRGB(index, rgb);
+    }
+
+    @Override
+    public void fill(int start, int end, int rgb) {
+        defaultSection.fill(start, end, rgb);
+    }
+
+    @Override
+    public void scale(int start, int end, int brightness) {
+        defaultSection.scale(start, end, brightness);
+    }
+
+    @Override
+    public void setRGB(int start, int[] rgb, int offset, int count) {
+        defaultSection.setRGB(start, rgb, offset, count);
+    }
+
+    @Override
+    public void forEachPixel(IntPixelConsumer action) {
+        buffer.forEachPixel(action);
+    }
+
     @Override
     public Iterator<Pixel> iterator() {
         return buffer.iterator();
@@ -242,7 +910,7 @@ public class GlowbotRio implements AutoCloseable, GlowbotControllable {
         stop();
         notifier.close();
         stopOutput();
-        ledStrip.close();
+        output.close();
     }
 
     @Override
@@ -1,12 +1,23 @@
 package com.orangeunilabs.glowbot;
 
-import edu.wpi.first.wpilibj.AddressableLED;
+import edu.wpi.first.math.MathUtil;
 import lombok.Getter;
+import lombok.NonNull;
 
 /**
  * GlowbotRioConfig is for more advanced use cases, i.e. if you're not using WS2812B or other compatible LEDs
  */
 public class GlowbotRioConfig {
+    /**
+     * How long the LED strip is held low between frames so the LEDs latch the data, in microseconds. This is WPILib's
+     * default sync time.
+     */
+    public static final int SYNC_TIME_MICROSECONDS = 280;
+    /**
+     * Each pixel takes 24 bits (8 per color channel)
+     */
+    private static final int BITS_PER_PIXEL = 24;
+
     @Getter
     public final int port, length;
 
@@ -18,7 +29,52 @@ public class GlowbotRioConfig {
      * Bit timings for LEDs, stored in Nanoseconds (ns). WPILib is set up for WS2812B LEDs by default.
      */
     @Getter()
-    private int lowTime0, highTime0, highTime1, lowTime1;
+    private int lowTime0 = 900, highTime0 = 400, highTime1 = 900, lowTime1 = 600;
+
+    /**
+     * Estimated current drawn by one color channel of one LED at full brightness, in milliamps. About 20mA for WS2812B.
+     */
+    @Getter
+    private double milliampsPerChannel = 20;
+    /**
+     * Estimated current drawn by one LED that is off, in milliamps
+     */
+    @Getter
+    private double idleMilliampsPerLED = 1;
+    /**
+     * The most current the strip may draw, in milliamps. Frames that would draw more are dimmed.
+     */
+    @Getter
+    private double powerBudgetMilliamps = Double.POSITIVE_INFINITY;
+
+    /**
+     * The gamma applied to every channel before it is sent; 1 does nothing
+     */
+    @Getter
+    private double gamma = 1;
+    /**
+     * The packed color that full white is sent as
+     */
+    @Getter
+    private int whiteBalance = 0xFFFFFF;
+    @Getter
+    private ColorOrder colorOrder = ColorOrder.GRB;
+    /**
+     * Whether frames are color corrected with 16 bits per channel and dithered over time down to the 8 bits the LEDs
+     * take
+     */
+    @Getter
+    private boolean temporalDithering = false;
+
+    /**
+     * A config for a strip driven by something other than the roboRIO's PWM output, i.e. a coprocessor
+     *
+     * @param length Number of LED pixels on the strip
+     * @see GlowbotRio#GlowbotRio(GlowbotRioConfig, com.orangeunilabs.glowbot.output.LEDOutput)
+     */
+    public GlowbotRioConfig(int length) {
+        this(-1, length);
+    }
 
     /**
      * The most basic config. Using the default bit timings which are configured for WS2812B LEDs.
@@ -31,7 +87,7 @@ public class GlowbotRioConfig {
     public GlowbotRioConfig(int pwmPort, int length) {
         hasAlternateBitTiming = false;
         this.port = pwmPort;
-        this.length = port;
+        this.length = length;
     }
 
     public GlowbotRioConfig(int pwmPort, int length, int highTime0NanoSeconds,
@@ -40,7 +96,7 @@ public class GlowbotRioConfig {
                          int lowTime1NanoSeconds) {
         this.port = pwmPort;
         this.length = length;
-        this.hasAlternateBitTiming = false;
+        this.hasAlternateBitTiming = true;
         this.highTime0 = highTime0NanoSeconds;
         this.lowTime0 = lowTime0NanoSeconds;
         this.highTime1 = highTime1NanoSeconds;
@@ -69,13 +125,125 @@ public class GlowbotRioConfig {
         this.lowTime1 = lowTime1NanoSeconds;
     }
 
-    void configureBitTiming (
-            AddressableLED ledStrip
-    ) {
-        if (hasAlternateBitTiming) {
-            return;
+    /**
+     * Sets how the current drawn by the strip is estimated. Current is assumed to grow linearly with each channel's
+     * value, which is close enough for budgeting.
+     *
+     * <p>The defaults (20mA per channel, 1mA per LED) are typical for WS2812B, so nothing needs to be set for those.
+     *
+     * @param milliampsPerChannel current drawn by one channel of one LED at full brightness
+     * @param idleMilliampsPerLED current drawn by one LED that is off
+     */
+    public void setCurrentModel(double milliampsPerChannel, double idleMilliampsPerLED) {
+        if (milliampsPerChannel < 0 || idleMilliampsPerLED < 0) {
+            throw new GlowbotException(String.format("GlowbotRioConfig: Invalid current model of %smA per channel " +
+                    "and %smA per LED", milliampsPerChannel, idleMilliampsPerLED));
+        }
+        this.milliampsPerChannel = milliampsPerChannel;
+        this.idleMilliampsPerLED = idleMilliampsPerLED;
+    }
+
+    /**
+     * Limits the current the strip is estimated to draw (see {@link #setCurrentModel(double, double)}). Frames that
+     * would draw more are dimmed as a whole just enough to fit, so long strips at full white cannot brown out the
+     * robot. By default there is no limit.
+     *
+     * @param milliamps the most current the strip may draw, including its idle current
+     */
+    public void setPowerBudget(double milliamps) {
+        if (!(milliamps > 0)) {
+            throw new GlowbotException(String.format("GlowbotRioConfig: Invalid power budget of %smA", milliamps));
         }
-        ledStrip.setBitTiming(highTime0, lowTime0, highTime1, lowTime1);
+        this.powerBudgetMilliamps = milliamps;
+    }
+
+    /**
+     * Sets the gamma that frames are corrected with as they are sent, so patterns can work in plain RGB and still
+     * fade evenly to the eye. LEDs look much brighter at low values than they are, so ~2.2 suits most strips.
+     *
+     * @param gamma the exponent to apply to every channel; 1 (the default) does nothing
+     * @see LEDUtils#gammaTable(double)
+     */
+    public void setGamma(double gamma) {
+        if (!(gamma > 0)) {
+            throw new GlowbotException(String.format("GlowbotRioConfig: Invalid gamma of %s", gamma));
+        }
+        this.gamma = gamma;
+    }
+
+    /**
+     * Sets the color full white is sent as, to even out strips whose channels are not equally bright. Every channel
+     * is scaled by its value here, after gamma.
+     *
+     * @param red   the red value of full white [0-255]
+     * @param green the green value of full white [0-255]
+     * @param blue  the blue value of full white [0-255]
+     */
+    public void setWhiteBalance(int red, int green, int blue) {
+        this.whiteBalance = LEDUtils.pack(MathUtil.clamp(red, 0, 255), MathUtil.clamp(green, 0, 255),
+                MathUtil.clamp(blue, 0, 255));
+    }
+
+    /**
+     * Sets the order the LEDs expect their color channels in. WS2812B are GRB (the default), so nothing needs to be
+     * set for those. Frames are rearranged for it against the order the output sends channels in, so this is always
+     * the chips' own order, whichever output drives them.
+     *
+     * @param colorOrder the order from the LEDs' datasheet
+     */
+    public void setColorOrder(@NonNull ColorOrder colorOrder) {
+        this.colorOrder = colorOrder;
+    }
+
+    /**
+     * Sets whether frames are dithered over time. Gamma squeezes the darkest values together, so slow fades near black
+     * step visibly on 8-bit LEDs. With dithering on, frames are corrected with 16 bits per channel, and LEDs that
+     * fall between two 8-bit values flicker between them fast enough to look like the value in between. <br>
+     * LEDs between two values have to be sent every frame, so this keeps an adaptive updater running at its maximum
+     * rate while any are lit. It only looks smooth at high refresh rates (100Hz or more). <br>
+     * Patterns still draw with 8 bits per channel, so only the values that gamma or white balance move between two
+     * 8-bit values are dithered. With a gamma of 1 and full white balance there is nothing to dither, so the
+     * GlowbotRio warns and leaves dithering off.
+     *
+     * @param temporalDithering whether to dither frames over time
+     */
+    public void setTemporalDithering(boolean temporalDithering) {
+        this.temporalDithering = temporalDithering;
+    }
+
+    /**
+     * @param wireOrder the order the output sends channels in
+     * @return whether frames have to be corrected before they are sent, because the gamma or white balance was
+     * changed, or the chips expect their channels in another order than the output sends them
+     */
+    boolean hasColorCorrection(ColorOrder wireOrder) {
+        return gamma != 1 || whiteBalance != 0xFFFFFF || colorOrder != wireOrder;
+    }
+
+    /**
+     * @return whether correcting frames can put channels between two 8-bit values, which is all dithering smooths out
+     */
+    boolean hasFractionalCorrection() {
+        return gamma != 1 || whiteBalance != 0xFFFFFF;
+    }
+
+    /**
+     * The fastest rate that frames can physically be sent to a strip of this length with these bit timings. Updating
+     * LEDs faster than this just wastes CPU.
+     *
+     * @return the maximum refresh rate in Hertz
+     */
+    public double getMaxRefreshRateHertz() {
+        long bitTimeNanoSeconds = Math.max(highTime0 + lowTime0, highTime1 + lowTime1);
+        double frameSeconds = (length * BITS_PER_PIXEL * bitTimeNanoSeconds) / 1e9 + SYNC_TIME_MICROSECONDS / 1e6;
+        return 1 / frameSeconds;
+    }
+
+    /**
+     * @return whether the bit timings were changed from WPILib's defaults
+     */
+    public boolean hasAlternateBitTiming() {
+        return hasAlternateBitTiming;
     }
 
 }
@@ -0,0 +1,14 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * A callback that receives LED colors as packed {@code 0xRRGGBB} ints, used by
+ * {@link GlowbotControllable#forEachPixel(IntPixelConsumer)} to visit pixels without allocating.
+ */
+@FunctionalInterface
+public interface IntPixelConsumer {
+    /**
+     * @param index the index of the LED. This index may be relative to a section.
+     * @param rgb   the color of the LED packed as {@code 0xRRGGBB}
+     */
+    void accept(int index, int rgb);
+}
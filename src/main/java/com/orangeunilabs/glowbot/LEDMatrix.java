@@ -0,0 +1,265 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.wpilibj.util.Color;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A 2D drawing surface on a section (or any {@link GlowbotControllable}) wired as a panel. Coordinates are turned into
+ * LED indexes with the {@link MatrixLayout}'s lookup table:
+ *
+ * <pre>{@code
+ * LEDMatrix panel = new LEDMatrix(glowbot.getSection(60, 315), MatrixLayout.columnSerpentine(32, 8));
+ * panel.fillRow(0, LEDUtils.pack(255, 0, 0));
+ * panel.scroll(-1, 0, 0);
+ * }</pre>
+ *
+ * The matrix keeps the picture row by row, so scrolling and blits are array copies, and each drawing call hands the
+ * LEDs it changed to the section in one bulk {@link GlowbotControllable#setRGB(int, int[], int, int)}. Because of that
+ * it should be the only thing drawing on its LEDs. Drawing outside the matrix is clipped. <br>
+ * A matrix is not thread safe; draw on it from one thread, i.e. inside a pattern or from robot code.
+ */
+public final class LEDMatrix {
+    private final GlowbotControllable target;
+    @Getter
+    private final int width, height;
+    /**
+     * The LED index of each cell, row by row, or -1
+     */
+    private final int[] indexes;
+    /**
+     * The picture, row by row
+     */
+    private final int[] canvas;
+    /**
+     * The picture in strip order, handed to the target in bulk
+     */
+    private final int[] ledFrame;
+    /**
+     * LEDs in ledFrame that are not part of the layout, in order. They are read back from the target before a bulk
+     * copy that spans them.
+     */
+    private final int[] uncovered;
+
+    /**
+     * @param target the LEDs the panel is wired to. The layout's indexes are relative to it.
+     * @param layout how the panel is wired
+     */
+    public LEDMatrix(@NonNull GlowbotControllable target, @NonNull MatrixLayout layout) {
+        int maxIndex = layout.getMaxIndex();
+        if (maxIndex >= target.getLength()) {
+            throw new GlowbotException(String.format("Glowbot(LEDMatrix): The layout uses LED %s but there are only %s",
+                    maxIndex, target.getLength()));
+        }
+
+        this.target = target;
+        width = layout.getWidth();
+        height = layout.getHeight();
+        indexes = layout.indexTable();
+        canvas = new int[width * height];
+        ledFrame = new int[maxIndex + 1];
+
+        boolean[] covered = new boolean[ledFrame.length];
+        for (int cell = 0; cell < indexes.length; cell++) {
+            int index = indexes[cell];
+            if (index >= 0) {
+                covered[index] = true;
+                canvas[cell] = target.getRGB(index);
+                ledFrame[index] = canvas[cell];
+            }
+        }
+        int count = 0;
+        int[] gaps = new int[ledFrame.length];
+        for (int index = 0; index < covered.length; index++) {
+            if (!covered[index]) {
+                gaps[count++] = index;
+            }
+        }
+        uncovered = Arrays.copyOf(gaps, count);
+    }
+
+    /**
+     * @return the color at (x, y) packed as {@code 0xRRGGBB}, or 0 outside the matrix
+     */
+    public int getXY(int x, int y) {
+        return contains(x, y) ? canvas[y * width + x] : 0;
+    }
+
+    /**
+     * Set the color at (x, y)
+     *
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void setXY(int x, int y, int rgb) {
+        if (!contains(x, y)) {
+            return;
+        }
+        rgb &= 0xFFFFFF;
+        int cell = y * width + x;
+        canvas[cell] = rgb;
+        int index = indexes[cell];
+        if (index >= 0) {
+            ledFrame[index] = rgb;
+            target.setRGB(index, rgb);
+        }
+    }
+
+    /**
+     * Set the color at (x, y)
+     */
+    public void setXY(int x, int y, Color color) {
+        setXY(x, y, LEDUtils.pack(color));
+    }
+
+    /**
+     * Set the whole matrix to a color
+     *
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void fill(int rgb) {
+        fillRect(0, 0, width, height, rgb);
+    }
+
+    /**
+     * Set row y to a color
+     *
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void fillRow(int y, int rgb) {
+        fillRect(0, y, width, 1, rgb);
+    }
+
+    /**
+     * Set column x to a color
+     *
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void fillColumn(int x, int rgb) {
+        fillRect(x, 0, 1, height, rgb);
+    }
+
+    /**
+     * Set a rectangle to a color
+     *
+     * @param x   the left edge of the rectangle
+     * @param y   the top edge of the rectangle
+     * @param w   the width of the rectangle
+     * @param h   the height of the rectangle
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void fillRect(int x, int y, int w, int h, int rgb) {
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = Math.min(x + w, width) - 1, y1 = Math.min(y + h, height) - 1;
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+
+        for (int row = y0; row <= y1; row++) {
+            Arrays.fill(canvas, row * width + x0, row * width + x1 + 1, rgb & 0xFFFFFF);
+        }
+        flush(x0, y0, x1, y1);
+    }
+
+    /**
+     * Copy a small picture onto the matrix, i.e. a character of text or an icon
+     *
+     * @param bitmap      the picture's colors row by row, packed as {@code 0xRRGGBB}
+     * @param bitmapWidth the width of the picture. Its height is {@code bitmap.length / bitmapWidth}.
+     * @param x           where the left edge of the picture goes
+     * @param y           where the top edge of the picture goes
+     * @throws GlowbotException if bitmapWidth is not positive
+     */
+    public void blit(int[] bitmap, int bitmapWidth, int x, int y) {
+        if (bitmapWidth <= 0) {
+            throw new GlowbotException(String.format("Glowbot(LEDMatrix): Bitmap width must be positive, got %s",
+                    bitmapWidth));
+        }
+        int bitmapHeight = bitmap.length / bitmapWidth;
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = Math.min(x + bitmapWidth, width) - 1, y1 = Math.min(y + bitmapHeight, height) - 1;
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+
+        for (int row = y0; row <= y1; row++) {
+            int from = (row - y) * bitmapWidth + (x0 - x);
+            int to = row * width + x0;
+            for (int column = x0; column <= x1; column++) {
+                // Bits above the color would otherwise end up on the wire as a different color
+                canvas[to++] = bitmap[from++] & 0xFFFFFF;
+            }
+        }
+        flush(x0, y0, x1, y1);
+    }
+
+    /**
+     * Move the whole picture, i.e. to scroll text across the panel
+     *
+     * @param dx      how far to move it right. Negative moves it left.
+     * @param dy      how far to move it down. Negative moves it up.
+     * @param fillRgb the color of the cells that are uncovered, packed as {@code 0xRRGGBB}
+     */
+    public void scroll(int dx, int dy, int fillRgb) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        if (Math.abs(dx) >= width || Math.abs(dy) >= height) {
+            fill(fillRgb);
+            return;
+        }
+
+        // Rows are contiguous, so moving up or down is one copy
+        if (dy > 0) {
+            System.arraycopy(canvas, 0, canvas, dy * width, (height - dy) * width);
+            Arrays.fill(canvas, 0, dy * width, fillRgb);
+        } else if (dy < 0) {
+            System.arraycopy(canvas, -dy * width, canvas, 0, (height + dy) * width);
+            Arrays.fill(canvas, (height + dy) * width, canvas.length, fillRgb);
+        }
+        if (dx != 0) {
+            for (int rowStart = 0; rowStart < canvas.length; rowStart += width) {
+                if (dx > 0) {
+                    System.arraycopy(canvas, rowStart, canvas, rowStart + dx, width - dx);
+                    Arrays.fill(canvas, rowStart, rowStart + dx, fillRgb);
+                } else {
+                    System.arraycopy(canvas, rowStart - dx, canvas, rowStart, width + dx);
+                    Arrays.fill(canvas, rowStart + width + dx, rowStart + width, fillRgb);
+                }
+            }
+        }
+        flush(0, 0, width - 1, height - 1);
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Send the rectangle [x0, x1] x [y0, y1] to the target in one bulk copy
+     */
+    private void flush(int x0, int y0, int x1, int y1) {
+        int first = Integer.MAX_VALUE, last = -1;
+        for (int row = y0; row <= y1; row++) {
+            for (int cell = row * width + x0; cell <= row * width + x1; cell++) {
+                int index = indexes[cell];
+                if (index >= 0) {
+                    ledFrame[index] = canvas[cell];
+                    first = Math.min(first, index);
+                    last = Math.max(last, index);
+                }
+            }
+        }
+        if (last < 0) {
+            return;
+        }
+
+        // LEDs between the matrix's own that belong to something else keep their colors
+        int gap = Arrays.binarySearch(uncovered, first);
+        for (gap = gap < 0 ? -gap - 1 : gap; gap < uncovered.length && uncovered[gap] <= last; gap++) {
+            ledFrame[uncovered[gap]] = target.getRGB(uncovered[gap]);
+        }
+        target.setRGB(first, ledFrame, first, last - first + 1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * A small, fast random number generator for noisy patterns (SplitMix64). Unlike {@link java.util.Random}, it is not
+ * synchronized and never allocates, so each pattern should have its own. Giving it a seed makes a pattern play out
+ * exactly the same way every time, i.e. for repeatable shows or tests.
+ */
+public final class LEDRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private long state;
+
+    /**
+     * A generator with an unpredictable seed
+     */
+    public LEDRandom() {
+        this(System.nanoTime() ^ Thread.currentThread().getId() * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param seed generators with the same seed produce the same numbers
+     */
+    public LEDRandom(long seed) {
+        this.seed = seed;
+        state = seed;
+    }
+
+    /**
+     * @return the seed this generator was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Start the sequence over from the seed
+     */
+    public void reset() {
+        state = seed;
+    }
+
+    /**
+     * @return 64 random bits
+     */
+    public long nextLong() {
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return 32 random bits
+     */
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * @param bound the upper bound, which must be positive
+     * @return a random number in [0, bound)
+     */
+    public int nextInt(int bound) {
+        // Multiply and shift rather than %, which is slower and biased towards small numbers
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return a random color channel value [0-255]
+     */
+    public int nextByte() {
+        return (int) (nextLong() >>> 56);
+    }
+
+    /**
+     * @param max the largest shift
+     * @return a random shift in [-max, max]
+     */
+    public int nextShift(int max) {
+        return nextInt(2 * max + 1) - max;
+    }
+}
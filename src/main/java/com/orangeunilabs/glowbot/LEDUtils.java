@@ -1,68 +1,175 @@
 package com.orangeunilabs.glowbot;
 
-import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import lombok.experimental.UtilityClass;
 
-import java.util.Random;
-
 /**
  * This has some generally useful methods for working with colors in the context of WPILib
  */
 @UtilityClass
 public class LEDUtils {
-    private final Random rand = new Random((long) (Timer.getFPGATimestamp() + Timer.getMatchTime()));
+    /**
+     * How far {@link #randomShift(int, LEDRandom)} moves each channel, at most
+     */
+    public static final int RANDOM_SHIFT_MAX = 25;
+
+    /**
+     * Used by the methods that do not take an {@link LEDRandom}. One per thread, so they are never contended.
+     */
+    private static final ThreadLocal<LEDRandom> threadRandom = ThreadLocal.withInitial(LEDRandom::new);
+
+    /* -------- Packed RGB -------- */
 
     /**
-     * Convert a set of RGB values to a set of HSV values in WPILib convention
+     * Pack a set of RGB values into a single int in the form {@code 0xRRGGBB}. This is the format used by all the
+     * allocation-free methods in Glowbot, i.e. {@link GlowbotControllable#setRGB(int, int)}
      * @param r the Red value [0-255]
-     * @param g the Red value [0-255]
-     * @param b the Red value [0-255]
+     * @param g the Green value [0-255]
+     * @param b the Blue value [0-255]
+     * @return the packed color
+     */
+    public static int pack(int r, int g, int b) {
+        return ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+    }
+
+    /**
+     * Pack a {@link Color WPILib Color} into a single int. Each channel is rounded to the nearest value, unlike
+     * {@link edu.wpi.first.wpilibj.AddressableLEDBuffer#setLED(int, Color)} which truncates, so dim colors and colors
+     * that were converted back and forth do not drift darker.
+     * @param color the color to pack
+     * @return the packed color
+     */
+    public static int pack(Color color) {
+        return pack((int) (color.red * 255 + 0.5), (int) (color.green * 255 + 0.5), (int) (color.blue * 255 + 0.5));
+    }
+
+    /**
+     * Pack a {@link Color8Bit WPILib Color8Bit} into a single int
+     * @param color the color to pack
+     * @return the packed color
+     */
+    public static int pack(Color8Bit color) {
+        return pack(color.red, color.green, color.blue);
+    }
+
+    /**
+     * @param rgb a packed color
+     * @return the Red value [0-255]
+     */
+    public static int red(int rgb) {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    /**
+     * @param rgb a packed color
+     * @return the Green value [0-255]
+     */
+    public static int green(int rgb) {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    /**
+     * @param rgb a packed color
+     * @return the Blue value [0-255]
+     */
+    public static int blue(int rgb) {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * Convert a packed color back into a {@link Color WPILib Color}. This allocates, so avoid it in pattern code.
+     * @param rgb a packed color
+     * @return a new {@link Color}
+     */
+    public static Color toColor(int rgb) {
+        return new Color(red(rgb), green(rgb), blue(rgb));
+    }
+
+    /**
+     * Convert a packed color back into a {@link Color8Bit WPILib Color8Bit}. This allocates, so avoid it in pattern
+     * code.
+     * @param rgb a packed color
+     * @return a new {@link Color8Bit}
+     */
+    public static Color8Bit toColor8Bit(int rgb) {
+        return new Color8Bit(red(rgb), green(rgb), blue(rgb));
+    }
+
+    /**
+     * Convert a set of HSV values in WPILib convention to a packed color without allocating. This uses the same
+     * integer math as {@link edu.wpi.first.wpilibj.AddressableLEDBuffer#setHSV(int, int, int, int)}.
+     * @param h the hue [0-180)
+     * @param s the saturation [0-255]
+     * @param v the value [0-255]
+     * @return the color packed as {@code 0xRRGGBB}
+     */
+    public static int hsvToRgb(int h, int s, int v) {
+        if (s == 0) {
+            return pack(v, v, v);
+        }
+
+        int chroma = (s * v) / 255;
+        int region = (h / 30) % 6;
+        // Same as Math.round((h % 30) * (255 / 30.0)), but without leaving integer math
+        int remainder = ((h % 30) * 17 + 1) >> 1;
+        int m = v - chroma;
+        int x = (chroma * remainder) >> 8;
+
+        switch (region) {
+            case 0:
+                return pack(v, x + m, m);
+            case 1:
+                return pack(v - x, v, m);
+            case 2:
+                return pack(m, v, x + m);
+            case 3:
+                return pack(m, v - x, v);
+            case 4:
+                return pack(x + m, m, v);
+            default:
+                return pack(v, m, v - x);
+        }
+    }
+
+    /**
+     * Convert a set of RGB values to a set of HSV values in WPILib convention. This only uses integer math.
+     * @param r the Red value [0-255]
+     * @param g the Green value [0-255]
+     * @param b the Blue value [0-255]
      * @return an array containing the values [hue, saturation, value]
      */
     public static int[] rgbToHsv(int r, int g, int b) {
         int[] hsv = new int[3];
 
-        // Convert 0-255 values to 0-1 values
-        double rPrime = (double) r / 255, gPrime = (double) g / 255, bPrime = (double) b / 255;
-
-        double cMax = Math.max(rPrime, Math.max(gPrime, bPrime));
-        double cMin = Math.min(rPrime, Math.min(gPrime, bPrime));
-        double cDelta = cMax - cMin;
+        int cMax = Math.max(r, Math.max(g, b));
+        int cMin = Math.min(r, Math.min(g, b));
+        int cDelta = cMax - cMin;
 
-        // Hue calculation
+        // Hue calculation, in degrees
+        int hue;
         if (cDelta == 0) {
-            // Ignore warning so that code is clear
-            //noinspection DataFlowIssue
-            hsv[0] = 0;
-        } else if (cMax == rPrime) {
-            hsv[0] = (int) Math.round(60 * (((gPrime - bPrime) / cDelta) % 6));
-        } else if (cMax == gPrime) {
-            hsv[0] = (int) Math.round(60 * (((bPrime - rPrime) / cDelta) + 2));
-        } else if (cMax == bPrime) {
-            hsv[0] = (int) Math.round(60 * (((rPrime - gPrime) / cDelta) + 4));
+            hue = 0;
+        } else if (cMax == r) {
+            hue = roundDiv(60 * (g - b), cDelta);
+        } else if (cMax == g) {
+            hue = roundDiv(60 * (b - r), cDelta) + 120;
+        } else {
+            hue = roundDiv(60 * (r - g), cDelta) + 240;
         }
 
         // Adjust hue range to [0, 360)
-        if (hsv[0] < 0)
-            hsv[0] += 360;
+        if (hue < 0)
+            hue += 360;
 
         // Convert hue again to [0, 180) for WPILib
-        hsv[0] = hsv[0] / 2;
+        hsv[0] = hue / 2;
 
         // Saturation calculation
-        if (cMax == 0) {
-            // Ignore warning so that code is clear
-            //noinspection DataFlowIssue
-            hsv[1] = 0;
-        } else {
-            hsv[1] = (int) Math.round(cDelta / cMax * 255);
-        }
+        hsv[1] = cMax == 0 ? 0 : roundDiv(cDelta * 255, cMax);
 
         // Value calculation
-        hsv[2] = (int) Math.round(cMax * 255);
+        hsv[2] = cMax;
 
         return hsv;
     }
@@ -73,7 +180,8 @@ public class LEDUtils {
      * @return an array containing the values [hue, saturation, value]
      */
     public static int[] rgbToHsv(Color color) {
-        return rgbToHsv((int) color.red, (int) color.blue, (int) color.green);
+        int rgb = pack(color);
+        return rgbToHsv(red(rgb), green(rgb), blue(rgb));
     }
 
     /**
@@ -82,11 +190,127 @@ public class LEDUtils {
      * @return an array containing the values [hue, saturation, value]
      */
     public static int[] rgbToHsv(Color8Bit color) {
-        return rgbToHsv(color.red, color.blue, color.green);
+        return rgbToHsv(color.red, color.green, color.blue);
+    }
+
+    /* -------- Tables & Scaling -------- */
+
+    /**
+     * Build a gamma correction table. LEDs are much brighter at low values than they look, so a gamma of ~2.2 makes
+     * fades look even to the eye.
+     * @param gamma the exponent to apply; 1 does nothing
+     * @return a 256 entry table mapping a channel value to its corrected value
+     * @see #applyTable(int, int[])
+     */
+    public static int[] gammaTable(double gamma) {
+        int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (int) Math.round(Math.pow(i / 255.0, gamma) * 255);
+        }
+        return table;
+    }
+
+    /**
+     * Run each channel of a packed color through a 256 entry table, i.e. one from {@link #gammaTable(double)}
+     * @param rgb   a packed color
+     * @param table the table to look channel values up in
+     * @return the packed result
+     */
+    public static int applyTable(int rgb, int[] table) {
+        return (table[red(rgb)] << 16) | (table[green(rgb)] << 8) | table[blue(rgb)];
+    }
+
+    /**
+     * Scale the brightness of a packed color
+     * @param rgb        a packed color
+     * @param brightness the brightness [0-255], where 255 leaves the color unchanged and 0 turns it off
+     * @return the packed result
+     */
+    public static int scale(int rgb, int brightness) {
+        int factor = brightness + 1;
+        return (((red(rgb) * factor) >> 8) << 16) | (((green(rgb) * factor) >> 8) << 8) | ((blue(rgb) * factor) >> 8);
+    }
+
+    /**
+     * Blend between two packed colors
+     * @param from   the color to blend from
+     * @param to     the color to blend to
+     * @param amount how far to blend [0-255], where 0 is {@code from} and 255 is {@code to}
+     * @return the packed result
+     */
+    public static int blend(int from, int to, int amount) {
+        // Map [0, 255] onto [0, 256] so that both ends are exact
+        int toWeight = amount + (amount >> 7);
+        int fromWeight = 256 - toWeight;
+        int r = (red(from) * fromWeight + red(to) * toWeight) >> 8;
+        int g = (green(from) * fromWeight + green(to) * toWeight) >> 8;
+        int b = (blue(from) * fromWeight + blue(to) * toWeight) >> 8;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Add two packed colors, clamping each channel at 255
+     * @param a the first color
+     * @param b the second color
+     * @return the packed result
+     */
+    public static int add(int a, int b) {
+        int r = Math.min(red(a) + red(b), 255);
+        int g = Math.min(green(a) + green(b), 255);
+        int bl = Math.min(blue(a) + blue(b), 255);
+        return (r << 16) | (g << 8) | bl;
+    }
+
+    /**
+     * Multiply two packed colors channel by channel, where 255 is 1. Multiplying by white leaves a color unchanged.
+     * @param a the first color
+     * @param b the second color
+     * @return the packed result
+     */
+    public static int multiply(int a, int b) {
+        return (mul255(red(a), red(b)) << 16) | (mul255(green(a), green(b)) << 8) | mul255(blue(a), blue(b));
+    }
+
+    // x * y / 255, rounded, without dividing
+    private static int mul255(int x, int y) {
+        int product = x * y + 128;
+        return (product + (product >> 8)) >> 8;
+    }
+
+    // Integer division that rounds halves up, like Math.round. The divisor must be positive.
+    private static int roundDiv(int dividend, int divisor) {
+        return Math.floorDiv(2 * dividend + divisor, 2 * divisor);
+    }
+
+    /* -------- Random colors -------- */
+
+    /**
+     * @param random the generator to use
+     * @return a random color packed as {@code 0xRRGGBB}
+     */
+    public static int randomRGB(LEDRandom random) {
+        return (int) (random.nextLong() >>> 40);
+    }
+
+    /**
+     * Randomly shift each channel of a color up or down by up to {@value #RANDOM_SHIFT_MAX}, without allocating
+     *
+     * @param rgb    the color packed as {@code 0xRRGGBB}
+     * @param random the generator to use
+     * @return the shifted color packed as {@code 0xRRGGBB}
+     */
+    public static int randomShift(int rgb, LEDRandom random) {
+        // One draw covers all 3 channels: 16 bits each, scaled to [0, 2 * max]
+        long bits = random.nextLong();
+        int span = 2 * RANDOM_SHIFT_MAX + 1;
+        int r = red(rgb) + (int) (((bits >>> 48) * span) >>> 16) - RANDOM_SHIFT_MAX;
+        int g = green(rgb) + (int) ((((bits >>> 32) & 0xFFFF) * span) >>> 16) - RANDOM_SHIFT_MAX;
+        int b = blue(rgb) + (int) ((((bits >>> 16) & 0xFFFF) * span) >>> 16) - RANDOM_SHIFT_MAX;
+        return pack(clampByte(r), clampByte(g), clampByte(b));
     }
 
     public static Color randomColor() {
-        return new Color(rand.nextInt(0, 255), rand.nextInt(0, 255), rand.nextInt(0, 255));
+        return toColor(randomRGB(threadRandom.get()));
     }
 
     /* Credit for randomShift and randomColorShift methods goes to FRC team 5013, Trobots */
@@ -95,14 +319,13 @@ public class LEDUtils {
      * Randomly shift the RGB values in a color
      * @param aColor a color
      * @return that input color shifted around randomly
+     * @see #randomShift(int, LEDRandom)
      */
     public static Color randomColorShift(Color aColor){
-        return new Color(randomShift(aColor.red),randomShift(aColor.green),randomShift(aColor.blue));
+        return toColor(randomShift(pack(aColor), threadRandom.get()));
     }
 
-    private static double randomShift(double value){
-        double sign = rand.nextDouble() >= 0.5 ? 1.0 : -1.0;
-        double amount = Math.random() / 10;
-        return MathUtil.clamp(value + sign * amount, 0, 1);
+    private static int clampByte(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
     }
 }
@@ -0,0 +1,99 @@
+package com.orangeunilabs.glowbot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of durations. Buckets are powers of two in microseconds, so recording a value
+ * is a handful of atomic adds and never allocates. It is safe to record from one thread while reading from another.
+ */
+public final class LatencyHistogram {
+    /**
+     * Bucket 0 holds durations under 1us and bucket i holds [2^(i-1), 2^i) microseconds. The last bucket also holds
+     * everything longer (~4 seconds and up).
+     */
+    public static final int BUCKET_COUNT = 24;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Add a duration to the histogram
+     *
+     * @param nanos the duration in nanoseconds. Negative durations are counted as 0.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        long micros = nanos / 1000;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return how many durations have been recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the mean of all recorded durations in microseconds, or 0 if nothing has been recorded
+     */
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / 1000.0 / n;
+    }
+
+    /**
+     * @return the longest recorded duration in microseconds
+     */
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    /**
+     * Estimate a percentile. Since buckets are powers of two, the result is the upper bound of the bucket the
+     * percentile falls in, so it can overestimate by up to 2x.
+     *
+     * @param percentile the percentile to estimate [0-1], i.e. 0.99
+     * @return an upper bound on the percentile in microseconds, or 0 if nothing has been recorded
+     */
+    public double getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= target) {
+                return Math.min(1L << bucket, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Clear all recorded durations
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            buckets.set(bucket, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * Flattens a {@link GlowbotRio}'s layers into the frame that is handed to the LED strip. Only the LEDs that changed on
+ * some layer since the last frame are composited, and when there are no layers above the bottom one, it is published
+ * straight to the strip like before layers existed. Only used by the thread rendering frames.
+ */
+final class LayerCompositor {
+    private final GlowbotLayer base;
+    /**
+     * The flattened frame, before it is copied into the front buffer
+     */
+    private final GlowbotLEDBuffer frame;
+    /**
+     * The layers that were composited last frame, or null if the bottom layer was published straight to the strip
+     */
+    private GlowbotLayer[] lastOverlays = null;
+
+    LayerCompositor(GlowbotLayer base) {
+        this.base = base;
+        frame = new GlowbotLEDBuffer(base.getBuffer().getLength(), false);
+    }
+
+    /**
+     * Publish everything that changed on any layer into the front buffer
+     *
+     * @param overlays the layers above the bottom one, in z-order
+     * @param front    the buffer that is handed to the LED strip
+     * @return see {@link GlowbotLEDBuffer#publishTo(GlowbotLEDBuffer)}
+     */
+    int publishTo(GlowbotLayer[] overlays, GlowbotLEDBuffer front) {
+        int lastIdx = frame.getLength() - 1;
+
+        if (overlays.length == 0) {
+            if (lastOverlays != null) {
+                // The last layer was removed, so the front buffer still holds what it drew
+                lastOverlays = null;
+                base.getBuffer().markDirty(0, lastIdx);
+            }
+            return base.getBuffer().publishTo(front);
+        }
+
+        if (overlays != lastOverlays) {
+            // A layer was added or removed. The bottom layer was not published to its own copy while there were no
+            // layers, so it has to be caught up too.
+            lastOverlays = overlays;
+            base.getBuffer().markDirty(0, lastIdx);
+        }
+
+        // Publish every layer even if one fails, so that they have all caught up by the next attempt
+        boolean complete = base.publish() != GlowbotLEDBuffer.PUBLISH_RETRY;
+        for (GlowbotLayer overlay : overlays) {
+            complete &= overlay.publish() != GlowbotLEDBuffer.PUBLISH_RETRY;
+        }
+        if (!complete) {
+            // The published copies stay dirty, so this is composited once every layer is complete
+            return GlowbotLEDBuffer.PUBLISH_RETRY;
+        }
+
+        int start = Integer.MAX_VALUE, end = -1;
+        GlowbotLEDBuffer published = base.published;
+        if (published.isDirty()) {
+            start = published.getDirtyStart();
+            end = published.getDirtyEnd();
+            published.clearDirty();
+        }
+        for (GlowbotLayer overlay : overlays) {
+            published = overlay.published;
+            if (published.isDirty()) {
+                start = Math.min(start, published.getDirtyStart());
+                end = Math.max(end, published.getDirtyEnd());
+                published.clearDirty();
+            }
+        }
+        if (start > end) {
+            return GlowbotLEDBuffer.PUBLISH_UNCHANGED;
+        }
+
+        // Whatever is under the topmost layer that hides the whole range does not show, so compositing starts there
+        int first = overlays.length - 1;
+        while (first >= 0 && !overlays[first].hidesBelow(start, end)) {
+            first--;
+        }
+        int[] pixels = frame.pixels;
+        if (first < 0) {
+            System.arraycopy(base.published.pixels, start, pixels, start, end - start + 1);
+            first = 0;
+        }
+        for (int idx = first; idx < overlays.length; idx++) {
+            overlays[idx].compositeInto(pixels, start, end);
+        }
+        front.copyFrom(frame, start, end);
+        return GlowbotLEDBuffer.PUBLISH_DONE;
+    }
+}
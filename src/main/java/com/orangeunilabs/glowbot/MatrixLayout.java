@@ -0,0 +1,125 @@
+package com.orangeunilabs.glowbot;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * How the LEDs of a 2D panel are wired, as a lookup table from (x, y) to the LED's index along the strip. The table is
+ * computed once, so drawing on an {@link LEDMatrix} never has to work out serpentine indexes per pixel. <br>
+ * (0, 0) is the first LED of the panel and x increases along its first row (or column, for column layouts).
+ */
+public final class MatrixLayout {
+    @Getter
+    private final int width, height;
+    /**
+     * The LED index of each cell, row by row, or -1 for cells with no LED
+     */
+    private final int[] indexes;
+
+    private MatrixLayout(int width, int height, int[] indexes) {
+        this.width = width;
+        this.height = height;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Every row is wired in the same direction
+     */
+    public static MatrixLayout progressive(int width, int height) {
+        return rows(width, height, false);
+    }
+
+    /**
+     * Every other row is wired in the opposite direction, so the strip zigzags back and forth across the panel
+     */
+    public static MatrixLayout serpentine(int width, int height) {
+        return rows(width, height, true);
+    }
+
+    /**
+     * Every column is wired in the same direction
+     */
+    public static MatrixLayout columnProgressive(int width, int height) {
+        return columns(width, height, false);
+    }
+
+    /**
+     * Every other column is wired in the opposite direction. Most flexible 8x32 panels are wired this way.
+     */
+    public static MatrixLayout columnSerpentine(int width, int height) {
+        return columns(width, height, true);
+    }
+
+    /**
+     * A layout for any other wiring, or for shapes that are not rectangles
+     *
+     * @param width   the width of the grid
+     * @param height  the height of the grid
+     * @param indexes the LED index of each cell, row by row, or -1 for cells with no LED
+     */
+    public static MatrixLayout custom(int width, int height, int[] indexes) {
+        checkSize(width, height);
+        if (indexes.length != width * height) {
+            throw new GlowbotException(String.format("Glowbot(MatrixLayout): Expected %s indexes for a %sx%s grid, got %s",
+                    width * height, width, height, indexes.length));
+        }
+        for (int index : indexes) {
+            if (index < -1) {
+                throw new GlowbotException(String.format("Glowbot(MatrixLayout): Invalid index %s", index));
+            }
+        }
+        return new MatrixLayout(width, height, indexes.clone());
+    }
+
+    private static MatrixLayout rows(int width, int height, boolean serpentine) {
+        checkSize(width, height);
+        int[] indexes = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            boolean reversed = serpentine && (y & 1) == 1;
+            for (int x = 0; x < width; x++) {
+                indexes[y * width + x] = y * width + (reversed ? width - 1 - x : x);
+            }
+        }
+        return new MatrixLayout(width, height, indexes);
+    }
+
+    private static MatrixLayout columns(int width, int height, boolean serpentine) {
+        checkSize(width, height);
+        int[] indexes = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            boolean reversed = serpentine && (x & 1) == 1;
+            for (int y = 0; y < height; y++) {
+                indexes[y * width + x] = x * height + (reversed ? height - 1 - y : y);
+            }
+        }
+        return new MatrixLayout(width, height, indexes);
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new GlowbotException(String.format("Glowbot(MatrixLayout): Invalid size %sx%s", width, height));
+        }
+    }
+
+    /**
+     * @return the LED index of (x, y), or -1 if there is no LED there
+     */
+    public int getIndex(int x, int y) {
+        return indexes[y * width + x];
+    }
+
+    /**
+     * @return the highest LED index in the layout, or -1 if it has no LEDs
+     */
+    int getMaxIndex() {
+        return Arrays.stream(indexes).max().orElse(-1);
+    }
+
+    /**
+     * @return the lookup table itself, row by row. Not to be modified.
+     */
+    int[] indexTable() {
+        return indexes;
+    }
+}
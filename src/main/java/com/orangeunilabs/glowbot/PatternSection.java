@@ -1,6 +1,7 @@
 package com.orangeunilabs.glowbot;
 
 import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.transition.Transition;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
@@ -8,6 +9,8 @@ import lombok.Getter;
 import lombok.NonNull;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
     @Getter
@@ -21,8 +24,44 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
     private final int length;
     private final int sectionStartIdx, sectionEndIdx;
     private final GlowbotLEDBuffer rootBuffer;
-    private LEDPattern currentPattern;
-    private boolean patternFirstRun = true;
+    /*
+     * The pattern can be changed from robot code while the updater thread is running it, so changes are published
+     * through volatile fields and the updater keeps its own record of what it last ran.
+     */
+    private volatile LEDPattern currentPattern;
+    /**
+     * How to change to currentPattern. Written before the pattern, so the updater sees the transition that goes with
+     * it (or one requested just after it, which is just as good).
+     */
+    private volatile Transition pendingTransition;
+    /**
+     * Incremented whenever the pattern is changed or invalidated. Robot code and the updater can both do that at once,
+     * so the increment has to be atomic for neither to be lost.
+     */
+    private final AtomicInteger runRequestCount = new AtomicInteger();
+    /* Only written by the thread that updates this section */
+    private LEDPattern lastRunPattern = null;
+    private int lastRunRequestCount = 0;
+    /**
+     * The FPGA timestamp at or after which the current pattern needs to run again
+     */
+    private volatile double nextRunTime = 0;
+    /**
+     * Only used when this section is updated with {@link #periodic()} rather than by a {@link GlowbotRio}
+     */
+    private final FrameContext standaloneFrame = new FrameContext();
+    /**
+     * Created the first time a transition is used on this section. Only used by the updater.
+     */
+    private SectionTransition transitionState = null;
+    /**
+     * Called when the pattern is changed or invalidated, so an adaptive {@link GlowbotRio} can wake up and render it
+     */
+    Runnable onPatternChange;
+    /**
+     * How long the pattern took to run the last time it was updated, only measured when metrics are enabled
+     */
+    private long lastRenderTimeNanos = 0;
 
     /**
      * This represents a section of LEDs that a pattern can run on.
@@ -63,26 +102,26 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
     }
 
     /**
-     * Iterate over LEDs using cool for-each syntax
+     * Iterate over LEDs using cool for-each syntax. <br>
+     * The same {@link Pixel} is reused for every LED, so iterating does not allocate per pixel.
      */
     @Override
     public Iterator<Pixel> iterator() {
         return new Iterator<>() {
-            private final int endRootIndex = rootEndIdx;
-            private int currentRootIndex = rootStartIdx;
-            // This gets incremented and passed to the Pixel for consistency
+            private final Pixel pixel = new Pixel(rootBuffer, rootStartIdx);
             private int currentIndex = 0;
 
             @Override
             public boolean hasNext() {
-                return currentRootIndex <= endRootIndex;
+                return currentIndex < length;
             }
 
             @Override
             public Pixel next() {
-                currentIndex++;
-                currentRootIndex++;
-                return new Pixel(currentIndex, () -> rootBuffer.getLED(currentRootIndex), (Color color) -> rootBuffer.setLED(currentRootIndex, color));
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pixel.moveTo(currentIndex++);
             }
 
             @Override
@@ -92,6 +131,14 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
         };
     }
 
+    @Override
+    public void forEachPixel(IntPixelConsumer action) {
+        int[] pixels = rootBuffer.pixels;
+        for (int idx = 0; idx < length; idx++) {
+            action.accept(idx, pixels[rootStartIdx + idx]);
+        }
+    }
+
     @Override
     public Color get(int index) {
         return rootBuffer.getLED(calcRealIndex(index));
@@ -112,24 +159,72 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
         rootBuffer.setLED(calcRealIndex(index), color);
     }
 
+    @Override
+    public int getRGB(int index) {
+        return rootBuffer.getRGB(calcRealIndex(index));
+    }
+
+    @Override
+    public void setRGB(int index, int rgb) {
+        rootBuffer.setRGB(calcRealIndex(index), rgb);
+    }
+
+    /**
+     * Copy a run of packed colors onto this section. Colors that would go past the end of the section are ignored.
+     *
+     * @param start  the index of the first LED to set (starting at 0)
+     * @param rgb    colors packed as {@code 0xRRGGBB}
+     * @param offset the position in {@code rgb} of the first color
+     * @param count  how many LEDs to set
+     */
+    @Override
+    public void setRGB(int start, int[] rgb, int offset, int count) {
+        count = Math.min(count, length - start);
+        if (count > 0) {
+            rootBuffer.setRGB(calcRealIndex(start), rgb, offset, count);
+        }
+    }
+
+    /**
+     * Scale the brightness of part of this section
+     *
+     * @param start      the index of the LED at the start of the range (starting at 0)
+     * @param end        the index of the LED at the end of the range
+     * @param brightness the brightness [0-255], where 255 leaves the colors unchanged and 0 turns them off
+     */
+    @Override
+    public void scale(int start, int end, int brightness) {
+        start = MathUtil.clamp(start, sectionStartIdx, sectionEndIdx);
+        end = MathUtil.clamp(end, sectionStartIdx, sectionEndIdx);
+
+        rootBuffer.scale(calcRealIndex(start), calcRealIndex(end), brightness);
+    }
+
     /**
      * Set a section of this section to a color
      *
      * @param start the index of the LED at the start of the range (starting at 0)
      * @param end   the index of the LED at the end of the range
-     * @param color {@link Color8Bit}
+     * @param rgb   the color packed as {@code 0xRRGGBB}
      */
     @Override
-    public void setRange(int start, int end, Color8Bit color) {
+    public void fill(int start, int end, int rgb) {
         start = MathUtil.clamp(start, sectionStartIdx, sectionEndIdx);
         end = MathUtil.clamp(end, sectionStartIdx, sectionEndIdx);
 
-        int rangeRootStart = calcRealIndex(start);
-        int rangeRootEnd = calcRealIndex(end);
+        rootBuffer.fill(calcRealIndex(start), calcRealIndex(end), rgb);
+    }
 
-        for (int idx = rangeRootStart; idx <= rangeRootEnd; idx++) {
-            rootBuffer.setLED(idx, color);
-        }
+    /**
+     * Set a section of this section to a color
+     *
+     * @param start the index of the LED at the start of the range (starting at 0)
+     * @param end   the index of the LED at the end of the range
+     * @param color {@link Color8Bit}
+     */
+    @Override
+    public void setRange(int start, int end, Color8Bit color) {
+        fill(start, end, LEDUtils.pack(color));
     }
 
     /**
@@ -141,15 +236,7 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
      */
     @Override
     public void setRange(int start, int end, Color color) {
-        start = MathUtil.clamp(start, sectionStartIdx, sectionEndIdx);
-        end = MathUtil.clamp(end, sectionStartIdx, sectionEndIdx);
-
-        int rangeRootStart = calcRealIndex(start);
-        int rangeRootEnd = calcRealIndex(end);
-
-        for (int idx = rangeRootStart; idx <= rangeRootEnd; idx++) {
-            rootBuffer.setLED(idx, color);
-        }
+        fill(start, end, LEDUtils.pack(color));
     }
 
 
@@ -157,10 +244,106 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
         name = newName;
     }
 
+    /**
+     * Switch to a new pattern immediately. This also stops any transition that is running.
+     *
+     * @param newPattern the pattern to run, or null to stop running patterns on this section
+     */
     public void setCurrentPattern(LEDPattern newPattern) {
+        setCurrentPattern(newPattern, null);
+    }
+
+    /**
+     * Change to a new pattern gradually. The current pattern keeps running while the transition plays, and if the
+     * pattern is changed again before the transition is done, the next one starts from whatever is showing at that
+     * moment.
+     *
+     * @param newPattern the pattern to change to. A null pattern always switches immediately.
+     * @param transition how to change to it, i.e. {@link com.orangeunilabs.glowbot.transition.builtin.GBCrossFade},
+     *                   or null to switch immediately
+     */
+    public void setCurrentPattern(LEDPattern newPattern, Transition transition) {
         if (currentPattern != newPattern) {
-            patternFirstRun = true;
+            pendingTransition = transition;
             currentPattern = newPattern;
+            runRequestCount.incrementAndGet();
+            notifyPatternChange();
+        }
+    }
+
+    /**
+     * Make the current pattern run on the next call to {@link #periodic()}, even if it reported that its output has
+     * not changed. Use this after drawing over a section that has a static pattern on it.
+     */
+    public void invalidate() {
+        runRequestCount.incrementAndGet();
+        notifyPatternChange();
+    }
+
+    /**
+     * @return the FPGA timestamp at or after which the current pattern needs to run again, or
+     * {@link LEDPattern#NEVER} if there is no pattern or it is static
+     */
+    public double getNextRunTime() {
+        if (currentPattern == null) {
+            return LEDPattern.NEVER;
+        }
+        return runRequestCount.get() != lastRunRequestCount ? 0 : nextRunTime;
+    }
+
+    /**
+     * @return how long the pattern took to run the last time this section was updated, in nanoseconds. This is only
+     * measured when {@link GlowbotRio#enableMetrics() metrics are enabled}.
+     */
+    public long getLastRenderTimeNanos() {
+        return lastRenderTimeNanos;
+    }
+
+    void setLastRenderTimeNanos(long nanos) {
+        lastRenderTimeNanos = nanos;
+    }
+
+    /**
+     * @return the index of the first LED of this section in the LED strip
+     */
+    public int getStartIndex() {
+        return rootStartIdx;
+    }
+
+    /**
+     * @return the index of the last LED of this section in the LED strip
+     */
+    public int getEndIndex() {
+        return rootEndIdx;
+    }
+
+    /**
+     * @return the pattern currently set on this section, or null
+     */
+    public LEDPattern getCurrentPattern() {
+        return currentPattern;
+    }
+
+    /**
+     * Create a section covering part of this one, with the same name. Used when a new section takes over part of this
+     * one.
+     *
+     * @param start       the index of the first LED in the strip
+     * @param end         the index of the last LED in the strip
+     * @param keepPattern whether the part runs this section's pattern. Patterns keep state for the section they run
+     *                    on, so only one part may.
+     */
+    PatternSection slice(int start, int end, boolean keepPattern) {
+        PatternSection slice = new PatternSection(rootBuffer, start, end, name);
+        if (keepPattern) {
+            slice.setCurrentPattern(currentPattern);
+        }
+        return slice;
+    }
+
+    private void notifyPatternChange() {
+        if (onPatternChange != null) {
+            onPatternChange.run();
         }
     }
 
@@ -168,11 +351,79 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
      * Calls the periodic method of the currently running pattern.
      */
     public void periodic() {
-        if (currentPattern != null) {
-            GlowbotControllable controllable = this;
-            currentPattern.runPattern(controllable, patternFirstRun);
-            patternFirstRun = false;
+        standaloneFrame.advance();
+        periodic(standaloneFrame);
+    }
+
+    /**
+     * Calls the periodic method of the currently running pattern, if it is due to run. Patterns that report (via
+     * {@link LEDPattern#getNextRunTime(FrameContext)}) that their output will not change yet are skipped.
+     *
+     * @param frame the timing of the frame being rendered
+     */
+    public void periodic(FrameContext frame) {
+        LEDPattern pattern = currentPattern;
+        if (pattern == null) {
+            if (lastRunPattern != null) {
+                // Stopped, so whatever runs next starts fresh from what is showing
+                lastRunPattern = null;
+                if (transitionState != null) {
+                    transitionState.cancel();
+                }
+            }
+            return;
+        }
+
+        int requestCount = runRequestCount.get();
+        boolean isFirstRun = pattern != lastRunPattern;
+        if (isFirstRun) {
+            startTransition(frame);
+        }
+
+        if (transitionState != null && transitionState.isRunning()) {
+            lastRunPattern = pattern;
+            lastRunRequestCount = requestCount;
+            // Transitions render every update until they finish
+            nextRunTime = transitionState.render(this, pattern, frame)
+                    ? transitionState.getIncomingNextRunTime() : frame.getTimestamp();
+            return;
+        }
+
+        if (!isFirstRun && requestCount == lastRunRequestCount && frame.getTimestamp() < nextRunTime) {
+            return;
         }
+
+        lastRunPattern = pattern;
+        lastRunRequestCount = requestCount;
+        GlowbotControllable controllable = this;
+        pattern.runPattern(controllable, frame, isFirstRun);
+        nextRunTime = pattern.getNextRunTime(frame);
+    }
+
+    /**
+     * Start the transition that was requested along with the current pattern, if there is one
+     */
+    private void startTransition(FrameContext frame) {
+        Transition transition = pendingTransition;
+        if (transition == null) {
+            if (transitionState != null) {
+                transitionState.cancel();
+            }
+            return;
+        }
+
+        if (transitionState == null) {
+            transitionState = new SectionTransition(length);
+        }
+        transitionState.start(transition, this, lastRunPattern, nextRunTime, frame.getTimestamp());
+    }
+
+    /**
+     * @return whether a transition between patterns is playing on this section
+     */
+    public boolean isTransitioning() {
+        SectionTransition state = transitionState;
+        return state != null && state.isRunning();
     }
 
     /**
@@ -191,7 +442,7 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
      * @return whether the given section overlaps with this one
      */
     public boolean overlaps(int start, int end) {
-        return start <= rootEndIdx || end <= rootStartIdx;
+        return start <= rootEndIdx && end >= rootStartIdx;
     }
 
     private int calcRealIndex(int idx) {
@@ -205,7 +456,7 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
 
     @Override
     public boolean equals(Object obj) {
-        if (this.getClass() != obj.getClass())
+        if (obj == null || this.getClass() != obj.getClass())
             return false;
 
         PatternSection psCompare = (PatternSection) obj;
@@ -214,4 +465,9 @@ public class PatternSection implements Iterable<Pixel>, GlowbotControllable {
 
         return psCompare.rootStartIdx == rootStartIdx && psCompare.rootEndIdx == rootEndIdx;
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * rootStartIdx + rootEndIdx;
+    }
 }
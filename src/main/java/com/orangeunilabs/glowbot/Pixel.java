@@ -1,33 +1,37 @@
 package com.orangeunilabs.glowbot;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 
-import java.util.function.Consumer;
-import java.util.function.Supplier;
-
 /**
- * Custom Representation of a single LED Pixel.
+ * Custom Representation of a single LED Pixel. <br>
+ * A Pixel is a cursor into a buffer: iterators reuse a single instance and move it from LED to LED, so a Pixel
+ * should not be held on to after the loop moves past it.
  */
 public final class Pixel {
-    private final int idx;
-    /**
-     * Function that gets the pixel color
-     */
-    private final Supplier<Color> getter;
+    private final GlowbotLEDBuffer buffer;
     /**
-     * Function to set the pixel color
+     * The index in the buffer of the first LED in the section being iterated over
      */
-    private final Consumer<Color> setter;
-    private AddressableLEDBuffer buffer;
+    private final int offset;
+    private int idx;
 
     // Lack of `public` modifer prevents end users from instantiating
-    Pixel(int index, Supplier<Color> colorGetter, Consumer<Color> colorSetter) {
+    Pixel(GlowbotLEDBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Point this pixel at a different LED
+     *
+     * @param index the index of the LED in the section
+     * @return this pixel
+     */
+    Pixel moveTo(int index) {
         idx = index;
-        getter = colorGetter;
-        setter = colorSetter;
+        return this;
     }
 
     /* -------- GETTERS -------- */
@@ -38,7 +42,7 @@ public final class Pixel {
      * @return {@link Color} of this LED
      */
     public Color get() {
-        return getter.get();
+        return buffer.getLED(offset + idx);
     }
 
     /**
@@ -47,7 +51,16 @@ public final class Pixel {
      * @return {@link Color8Bit} of this LED
      */
     public Color8Bit get8Bit() {
-        return new Color8Bit(getter.get());
+        return buffer.getLED8Bit(offset + idx);
+    }
+
+    /**
+     * Get the color of this object without allocating
+     *
+     * @return the color of this LED packed as {@code 0xRRGGBB}
+     */
+    public int getRGB() {
+        return buffer.getRGB(offset + idx);
     }
 
     /**
@@ -65,7 +78,7 @@ public final class Pixel {
      * @param color {@link Color} to set on this LED
      */
     public void set(Color color) {
-        setter.accept(color);
+        buffer.setLED(offset + idx, color);
     }
 
     /**
@@ -74,7 +87,16 @@ public final class Pixel {
      * @param color {@link Color8Bit} to set on this LED
      */
     public void set(Color8Bit color) {
-        setter.accept(new Color(color));
+        buffer.setLED(offset + idx, color);
+    }
+
+    /**
+     * Set the color of this LED without allocating
+     *
+     * @param rgb the color packed as {@code 0xRRGGBB}
+     */
+    public void setRGB(int rgb) {
+        buffer.setRGB(offset + idx, rgb);
     }
 
     /**
@@ -86,7 +108,7 @@ public final class Pixel {
      * @param b the b value [0-256)
      */
     public void setRGB(int r, int g, int b) {
-        setter.accept(new Color(r, g, b));
+        buffer.setRGB(offset + idx, LEDUtils.pack(clamp255(r), clamp255(g), clamp255(b)));
     }
 
     /**
@@ -98,7 +120,7 @@ public final class Pixel {
      * @param v the v value [0-256)
      */
     public void setHSV(int h, int s, int v) {
-        setter.accept(Color.fromHSV(h, s, v));
+        buffer.setRGB(offset + idx, LEDUtils.hsvToRgb(clamp180(h), clamp255(s), clamp255(v)));
     }
 
     /* -------- Private Helpers -------- */
@@ -113,4 +135,3 @@ public final class Pixel {
         return MathUtil.clamp(val, 0, 179);
     }
 }
-
@@ -0,0 +1,103 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * The last stage before a frame is handed to the output: estimates the current the frame draws and dims the whole frame
+ * just enough to stay within {@link GlowbotRioConfig#setPowerBudget(double) the power budget}. The estimate comes from
+ * the sum of every channel of every LED, which is kept up to date from the range that changed each frame instead of
+ * adding up the whole strip again. Only used by the thread rendering frames.
+ */
+final class PowerLimiter {
+    private final double milliampsPerChannel;
+    private final double idleMilliamps;
+    private final double budgetMilliamps;
+    /**
+     * The frame {@link #channelSum} was counted from
+     */
+    private final int[] counted;
+    /**
+     * The dimmed frame, sent instead of the front buffer while the frame is over budget
+     */
+    private final GlowbotLEDBuffer limited;
+    private long channelSum = 0;
+    /**
+     * The brightness the frame on the strip was scaled by [0-255], where 255 is not dimmed
+     */
+    private int scale = 255;
+    private volatile int appliedScale = 255;
+    private volatile double estimatedMilliamps;
+
+    PowerLimiter(GlowbotRioConfig config) {
+        milliampsPerChannel = config.getMilliampsPerChannel();
+        idleMilliamps = config.getIdleMilliampsPerLED() * config.length;
+        budgetMilliamps = config.getPowerBudgetMilliamps();
+        counted = new int[config.length];
+        limited = new GlowbotLEDBuffer(config.length, false);
+        estimatedMilliamps = idleMilliamps;
+    }
+
+    /**
+     * Count the LEDs that changed in a frame and dim it if it is over budget
+     *
+     * @param frame the frame to send, with its dirty range set to what changed since the last one
+     * @return the buffer to send, with its dirty range set to what has to be sent. This is {@code frame} itself unless
+     * it had to be dimmed.
+     */
+    GlowbotLEDBuffer limit(GlowbotLEDBuffer frame) {
+        int start = frame.getDirtyStart(), end = frame.getDirtyEnd();
+        int[] pixels = frame.pixels;
+        channelSum += channelSum(pixels, start, end) - channelSum(counted, start, end);
+        System.arraycopy(pixels, start, counted, start, end - start + 1);
+
+        double fullMilliamps = channelSum * milliampsPerChannel / 255;
+        int newScale = 255;
+        if (idleMilliamps + fullMilliamps > budgetMilliamps) {
+            // LEDUtils.scale multiplies by (scale + 1) / 256
+            double fit = (budgetMilliamps - idleMilliamps) / fullMilliamps;
+            newScale = Math.max(0, Math.min(255, (int) (fit * 256) - 1));
+        }
+        int lastScale = scale;
+        scale = newScale;
+        appliedScale = newScale;
+        estimatedMilliamps = idleMilliamps + fullMilliamps * (newScale + 1) / 256;
+
+        if (newScale == 255) {
+            if (lastScale != 255) {
+                // The strip still shows the dimmed frame
+                frame.markDirty(0, pixels.length - 1);
+            }
+            return frame;
+        }
+
+        if (newScale != lastScale) {
+            start = 0;
+            end = pixels.length - 1;
+        }
+        FrameOps.scale(pixels, limited.pixels, start, end, newScale);
+        limited.markDirty(start, end);
+        frame.clearDirty();
+        return limited;
+    }
+
+    /**
+     * @return the current the last frame sent is estimated to draw, in milliamps
+     */
+    double getEstimatedMilliamps() {
+        return estimatedMilliamps;
+    }
+
+    /**
+     * @return the brightness the last frame sent was scaled by to fit the budget [0-255], where 255 is not dimmed
+     */
+    int getAppliedScale() {
+        return appliedScale;
+    }
+
+    private static long channelSum(int[] frame, int start, int end) {
+        long sum = 0;
+        for (int idx = start; idx <= end; idx++) {
+            int rgb = frame[idx];
+            sum += ((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,42 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * Plain loops, used where the Vector API is not available (i.e. the roboRIO)
+ */
+final class ScalarFrameKernels implements FrameKernels {
+    @Override
+    public void scale(int[] src, int[] dst, int start, int end, int brightness) {
+        int factor = brightness + 1;
+        for (int idx = start; idx <= end; idx++) {
+            int rgb = src[idx];
+            dst[idx] = (((rgb & 0xFF00FF) * factor >>> 8) & 0xFF00FF) | (((rgb & 0xFF00) * factor >>> 8) & 0xFF00);
+        }
+    }
+
+    @Override
+    public void add(int[] a, int[] b, int[] dst, int start, int end) {
+        for (int idx = start; idx <= end; idx++) {
+            int x = a[idx], y = b[idx];
+            // A channel that overflows sets the bit just above it, which is turned into 0xFF for that channel
+            int redBlue = (x & 0xFF00FF) + (y & 0xFF00FF);
+            int redBlueCarry = redBlue & 0x1000100;
+            redBlue |= redBlueCarry - (redBlueCarry >>> 8);
+            int green = (x & 0xFF00) + (y & 0xFF00);
+            int greenCarry = green & 0x10000;
+            green |= greenCarry - (greenCarry >>> 8);
+            dst[idx] = (redBlue & 0xFF00FF) | (green & 0xFF00);
+        }
+    }
+
+    @Override
+    public void lerp(int[] from, int[] to, int[] dst, int start, int end, int amount) {
+        int toWeight = amount + (amount >> 7);
+        int fromWeight = 256 - toWeight;
+        for (int idx = start; idx <= end; idx++) {
+            int x = from[idx], y = to[idx];
+            int redBlue = ((x & 0xFF00FF) * fromWeight + (y & 0xFF00FF) * toWeight) >>> 8;
+            int green = ((x & 0xFF00) * fromWeight + (y & 0xFF00) * toWeight) >>> 8;
+            dst[idx] = (redBlue & 0xFF00FF) | (green & 0xFF00);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.orangeunilabs.glowbot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable set of non-overlapping {@link PatternSection}s, sorted by start index. <br>
+ * Since sections on one strip never overlap, a sorted array is an interval tree in its simplest form: a binary search
+ * finds the section that owns an LED, or every section that overlaps a range, in O(log n). Changes return a new
+ * registry instead of modifying this one, so the updater can read it without locking while robot code reconfigures
+ * sections.
+ */
+final class SectionRegistry {
+    static final SectionRegistry EMPTY = new SectionRegistry(new PatternSection[0]);
+
+    private final PatternSection[] sections;
+
+    private SectionRegistry(PatternSection[] sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * @return the sections in order. This is the registry's own array, so it must not be modified.
+     */
+    PatternSection[] array() {
+        return sections;
+    }
+
+    int size() {
+        return sections.length;
+    }
+
+    PatternSection get(int position) {
+        return sections[position];
+    }
+
+    /**
+     * @return the position of the first section that ends at or after {@code index}
+     */
+    int lowerBound(int index) {
+        int low = 0, high = sections.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sections[mid].getEndIndex() < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the position of the first section that starts after {@code index}
+     */
+    int upperBound(int index) {
+        int low = 0, high = sections.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sections[mid].getStartIndex() <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the section that contains an LED
+     *
+     * @param index the index of the LED in the strip
+     * @return the section, or null if no section contains the LED
+     */
+    PatternSection findOwner(int index) {
+        int position = lowerBound(index);
+        if (position < sections.length && sections[position].getStartIndex() <= index) {
+            return sections[position];
+        }
+        return null;
+    }
+
+    /**
+     * @return the position of a section in this registry, or -1 if it is not in it
+     */
+    int indexOf(PatternSection section) {
+        int position = lowerBound(section.getStartIndex());
+        return position < sections.length && sections[position] == section ? position : -1;
+    }
+
+    /**
+     * Create a new registry with the sections in positions [from, to) swapped out for others
+     *
+     * @param from         the first position to replace
+     * @param to           the position after the last one to replace
+     * @param replacements the sections to put in their place, sorted and fitting between the sections that remain
+     * @return the new registry
+     */
+    SectionRegistry replace(int from, int to, List<PatternSection> replacements) {
+        PatternSection[] updated = new PatternSection[sections.length - (to - from) + replacements.size()];
+        System.arraycopy(sections, 0, updated, 0, from);
+        for (int i = 0; i < replacements.size(); i++) {
+            updated[from + i] = replacements.get(i);
+        }
+        System.arraycopy(sections, to, updated, from + replacements.size(), sections.length - to);
+        return new SectionRegistry(updated);
+    }
+
+    List<PatternSection> asList() {
+        return Arrays.asList(sections);
+    }
+}
@@ -0,0 +1,164 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The non-overlapping {@link PatternSection}s drawn into one buffer, shared by {@link GlowbotLayer}s and
+ * {@link VirtualStrip}s. Robot code adds and removes sections while the updater renders them; the registry is
+ * copy-on-write, so the updater never locks.
+ */
+final class SectionSet {
+    final GlowbotLEDBuffer buffer;
+    /**
+     * Copy-on-write: replaced with a new registry under sectionLock, so the updater can iterate it without locking
+     */
+    volatile SectionRegistry registry = SectionRegistry.EMPTY;
+    private final Object sectionLock = new Object();
+    private final Runnable requestFrame;
+
+    /**
+     * @param buffer       the buffer the sections draw into
+     * @param requestFrame called when something changes, so an adaptive {@link GlowbotRio} renders it
+     */
+    SectionSet(GlowbotLEDBuffer buffer, Runnable requestFrame) {
+        this.buffer = buffer;
+        this.requestFrame = requestFrame;
+        buffer.onDirty = requestFrame;
+    }
+
+    /**
+     * @see GlowbotRio#getSection(int, int, boolean)
+     */
+    PatternSection getSection(int start, int end, boolean supersede) {
+        PatternSection newSection = new PatternSection(buffer, start, end, null);
+        attach(newSection);
+
+        synchronized (sectionLock) {
+            SectionRegistry current = registry;
+            int from = current.lowerBound(start);
+            int to = current.upperBound(end);
+
+            ArrayList<PatternSection> replacements = new ArrayList<>(3);
+            int replacedStart = start, replacedEnd = end;
+            if (from < to) {
+                if (!supersede) {
+                    return null;
+                }
+
+                // Only the first and last overlapping sections can stick out past the new one
+                PatternSection first = current.get(from);
+                boolean firstKept = first.getStartIndex() < start
+                        && addRemainder(replacements, first, first.getStartIndex(), start - 1, true);
+                replacements.add(newSection);
+                PatternSection last = current.get(to - 1);
+                if (last.getEndIndex() > end) {
+                    // A section split in two keeps its pattern in the part before the new section only
+                    addRemainder(replacements, last, end + 1, last.getEndIndex(), !(last == first && firstKept));
+                }
+                replacedStart = Math.min(first.getStartIndex(), start);
+                replacedEnd = Math.max(last.getEndIndex(), end);
+            } else {
+                replacements.add(newSection);
+            }
+
+            registry = current.replace(from, to, replacements);
+            // The new section has no pattern yet, so whatever was drawn underneath shows through again
+            buffer.invalidate(replacedStart, replacedEnd);
+            return newSection;
+        }
+    }
+
+    /**
+     * @return whether the remainder was added; parts shorter than 2 LEDs are dropped
+     */
+    private boolean addRemainder(ArrayList<PatternSection> replacements, PatternSection section, int start, int end,
+                                 boolean keepPattern) {
+        if (end - start + 1 < 2) {
+            return false;
+        }
+        PatternSection remainder = section.slice(start, end, keepPattern);
+        attach(remainder);
+        replacements.add(remainder);
+        return true;
+    }
+
+    private void attach(PatternSection section) {
+        int start = section.getStartIndex(), end = section.getEndIndex();
+        section.onPatternChange = () -> {
+            // Setting or clearing a pattern changes which LEDs a layer covers
+            buffer.invalidate(start, end);
+            requestFrame.run();
+        };
+    }
+
+    /**
+     * @see GlowbotRio#removeSection(PatternSection)
+     */
+    boolean removeSection(PatternSection section) {
+        synchronized (sectionLock) {
+            SectionRegistry current = registry;
+            int position = current.indexOf(section);
+            if (position < 0) {
+                return false;
+            }
+            registry = current.replace(position, position + 1, Collections.emptyList());
+            buffer.invalidate(section.getStartIndex(), section.getEndIndex());
+            return true;
+        }
+    }
+
+    PatternSection getSectionAt(int index) {
+        return registry.findOwner(index);
+    }
+
+    List<PatternSection> getSections() {
+        return Collections.unmodifiableList(registry.asList());
+    }
+
+    /**
+     * Mark every LED between the first and last section as changed
+     */
+    void invalidateSections() {
+        SectionRegistry current = registry;
+        if (current.size() > 0) {
+            buffer.invalidate(current.get(0).getStartIndex(), current.get(current.size() - 1).getEndIndex());
+        }
+    }
+
+    /**
+     * Run every section's pattern that is due. Only called from the render thread.
+     *
+     * @param measure whether to record how long each section took
+     */
+    void render(FrameContext frame, boolean measure) {
+        buffer.startRender();
+        for (PatternSection section : registry.array()) {
+            if (measure) {
+                long sectionStartNanos = System.nanoTime();
+                section.periodic(frame);
+                section.setLastRenderTimeNanos(System.nanoTime() - sectionStartNanos);
+            } else {
+                section.periodic(frame);
+            }
+        }
+    }
+
+    /**
+     * @return the FPGA timestamp at which a frame is next needed for these sections
+     */
+    double getNextRunTime(double now) {
+        if (buffer.isDirty()) {
+            // Something was drawn after the last frame was pushed
+            return now;
+        }
+        double nextRunTime = LEDPattern.NEVER;
+        for (PatternSection section : registry.array()) {
+            nextRunTime = Math.min(nextRunTime, section.getNextRunTime());
+        }
+        return nextRunTime;
+    }
+}
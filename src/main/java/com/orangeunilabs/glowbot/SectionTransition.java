@@ -0,0 +1,110 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.transition.Transition;
+
+/**
+ * Runs {@link Transition}s on one {@link PatternSection} (or {@link Timeline}). The outgoing and incoming patterns are
+ * drawn into scratch frames the size of the section, which are allocated once and reused by every transition on it,
+ * along with a third frame the transition can build its result in. Only used by the thread that updates the section.
+ */
+final class SectionTransition {
+    private final GlowbotLEDBuffer fromBuffer, toBuffer;
+    private final PatternSection fromFrame, toFrame;
+    private final int[] scratch;
+
+    private Transition transition = null;
+    /**
+     * Keeps animating the outgoing frame, or null if it is frozen
+     */
+    private LEDPattern outgoing;
+    private double outgoingNextRunTime, incomingNextRunTime;
+    private boolean incomingFirstRun;
+    private double startTime;
+
+    SectionTransition(int length) {
+        fromBuffer = new GlowbotLEDBuffer(length, false);
+        toBuffer = new GlowbotLEDBuffer(length, false);
+        fromFrame = new PatternSection(fromBuffer, 0, length - 1, null);
+        toFrame = new PatternSection(toBuffer, 0, length - 1, null);
+        scratch = new int[length];
+    }
+
+    /**
+     * Start a transition from what the section currently shows. If another transition was still running, it is
+     * dropped and the half-finished blend is frozen as the outgoing frame, so rapid pattern changes never stack up.
+     *
+     * @param newTransition       the transition to run
+     * @param section             the section, which still shows the outgoing pattern
+     * @param outgoingPattern     the pattern that was running on the section, or null
+     * @param outgoingNextRunTime when the outgoing pattern was next due to run
+     * @param timestamp           the time of the frame the transition starts on
+     */
+    void start(Transition newTransition, GlowbotControllable section, LEDPattern outgoingPattern,
+               double outgoingNextRunTime, double timestamp) {
+        int[] from = fromBuffer.pixels;
+        for (int idx = 0; idx < from.length; idx++) {
+            from[idx] = section.getRGB(idx);
+        }
+
+        outgoing = transition == null ? outgoingPattern : null;
+        this.outgoingNextRunTime = outgoingNextRunTime;
+        transition = newTransition;
+        incomingFirstRun = true;
+        startTime = timestamp;
+    }
+
+    /**
+     * Stop the transition where it is, i.e. when the pattern is changed without one
+     */
+    void cancel() {
+        transition = null;
+        outgoing = null;
+    }
+
+    /**
+     * @return the number of LEDs this can run transitions on
+     */
+    int getLength() {
+        return fromBuffer.getLength();
+    }
+
+    boolean isRunning() {
+        return transition != null;
+    }
+
+    /**
+     * Draw one frame of the transition onto the section
+     *
+     * @return whether the transition finished, leaving the section showing only the incoming pattern
+     */
+    boolean render(GlowbotControllable section, LEDPattern incoming, FrameContext frame) {
+        double timestamp = frame.getTimestamp();
+
+        if (outgoing != null && timestamp >= outgoingNextRunTime) {
+            outgoing.runPattern(fromFrame, frame, false);
+            outgoingNextRunTime = outgoing.getNextRunTime(frame);
+        }
+        if (incomingFirstRun || timestamp >= incomingNextRunTime) {
+            incoming.runPattern(toFrame, frame, incomingFirstRun);
+            incomingFirstRun = false;
+            incomingNextRunTime = incoming.getNextRunTime(frame);
+        }
+
+        int progress = transition.getProgress(timestamp - startTime);
+        transition.apply(fromBuffer.pixels, toBuffer.pixels, scratch, section, progress);
+
+        if (progress == 255) {
+            cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return when the incoming pattern is next due to run, once the transition has finished
+     */
+    double getIncomingNextRunTime() {
+        return incomingNextRunTime;
+    }
+}
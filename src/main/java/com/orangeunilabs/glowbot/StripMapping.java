@@ -0,0 +1,67 @@
+package com.orangeunilabs.glowbot;
+
+import java.util.Arrays;
+
+/**
+ * Which LEDs of the physical strip make up a {@link VirtualStrip}, in order. Runs can go in either direction, and LEDs
+ * that are left out (i.e. ones hidden inside the frame where the strip jumps from one run to the next) are gaps that
+ * no virtual strip draws on.
+ *
+ * <pre>{@code
+ * // 30 LEDs up the left side, then 30 LEDs wired back down the right side
+ * StripMapping frame = new StripMapping().addRun(0, 29).addRun(64, 35);
+ * }</pre>
+ */
+public final class StripMapping {
+    private int[] indexes = new int[16];
+    private int length = 0;
+
+    /**
+     * Add a run of consecutive physical LEDs to the end of the virtual strip
+     *
+     * @param first the physical index of the run's first LED
+     * @param last  the physical index of the run's last LED. If this is less than {@code first}, the run is reversed.
+     * @return this mapping, for chaining
+     */
+    public StripMapping addRun(int first, int last) {
+        int step = last >= first ? 1 : -1;
+        for (int idx = first; idx != last + step; idx += step) {
+            add(idx);
+        }
+        return this;
+    }
+
+    /**
+     * Add physical LEDs to the end of the virtual strip one by one, for layouts that are not made of runs
+     *
+     * @param physicalIndexes the physical index of each LED, in order
+     * @return this mapping, for chaining
+     */
+    public StripMapping addLEDs(int... physicalIndexes) {
+        for (int idx : physicalIndexes) {
+            add(idx);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of LEDs in the virtual strip
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the physical index of each virtual LED
+     */
+    int[] toIndexTable() {
+        return Arrays.copyOf(indexes, length);
+    }
+
+    private void add(int physicalIndex) {
+        if (length == indexes.length) {
+            indexes = Arrays.copyOf(indexes, length * 2);
+        }
+        indexes[length++] = physicalIndex;
+    }
+}
@@ -0,0 +1,126 @@
+package com.orangeunilabs.glowbot;
+
+/**
+ * Sends frames with more than 8 bits of precision per channel by dithering over time: each frame is color corrected
+ * into a 16-bit frame, and every LED that falls between two 8-bit values alternates between them so that on average it
+ * shows the value in between. The part of each channel that could not be sent is carried over to the next frame.
+ * <br>
+ * Gamma squeezes the darkest values together, so without this, slow fades near black step visibly. Only the LEDs that
+ * changed or are between two values are processed each frame. Only used by the thread rendering frames.
+ */
+final class TemporalDither {
+    /**
+     * The corrected value of each channel in 8.8 fixed point
+     */
+    private final int[] redTable, greenTable, blueTable;
+    /**
+     * Where the chip expects each channel among the three kept for an LED: 0 is packed where red goes, 1 where green
+     * goes, and 2 where blue goes
+     */
+    private final int redSlot, greenSlot, blueSlot;
+    /**
+     * The corrected frame in 8.8 fixed point, three channels per LED in the order they are sent
+     */
+    private final int[] target;
+    /**
+     * The fraction of each channel that has not been shown yet [0-255]
+     */
+    private final int[] error;
+    /**
+     * The frame that is sent
+     */
+    private final GlowbotLEDBuffer dithered;
+    /**
+     * The range of LEDs [fractionStart, fractionEnd] that are between two 8-bit values, so have to be sent every frame
+     */
+    private int fractionStart = Integer.MAX_VALUE, fractionEnd = -1;
+
+    /**
+     * @param wireOrder the order the output sends channels in
+     */
+    TemporalDither(GlowbotRioConfig config, ColorOrder wireOrder) {
+        int whiteBalance = config.getWhiteBalance();
+        ColorOrder order = config.getColorOrder();
+        redTable = table(config.getGamma(), LEDUtils.red(whiteBalance));
+        greenTable = table(config.getGamma(), LEDUtils.green(whiteBalance));
+        blueTable = table(config.getGamma(), LEDUtils.blue(whiteBalance));
+        redSlot = slot(order.shiftOf('R', wireOrder));
+        greenSlot = slot(order.shiftOf('G', wireOrder));
+        blueSlot = slot(order.shiftOf('B', wireOrder));
+        target = new int[config.length * 3];
+        error = new int[config.length * 3];
+        dithered = new GlowbotLEDBuffer(config.length, false);
+    }
+
+    /**
+     * @return whether some LEDs are between two values, so frames have to keep being sent even if nothing changed
+     */
+    boolean isDithering() {
+        return fractionStart <= fractionEnd;
+    }
+
+    /**
+     * Correct the LEDs that changed in a frame, and dither everything that is between two values
+     *
+     * @param frame the frame to send, with its dirty range set to what changed since the last one. This may be empty.
+     * @return the dithered frame, with its dirty range set to what has to be sent. The frame's dirty range is cleared.
+     */
+    GlowbotLEDBuffer dither(GlowbotLEDBuffer frame) {
+        int[] pixels = frame.pixels;
+        int[] red = redTable, green = greenTable, blue = blueTable;
+        int changedStart = frame.getDirtyStart(), changedEnd = frame.getDirtyEnd();
+        for (int idx = changedStart; idx <= changedEnd; idx++) {
+            int rgb = pixels[idx];
+            int channel = idx * 3;
+            target[channel + redSlot] = red[(rgb >> 16) & 0xFF];
+            target[channel + greenSlot] = green[(rgb >> 8) & 0xFF];
+            target[channel + blueSlot] = blue[rgb & 0xFF];
+        }
+        frame.clearDirty();
+
+        // Every LED that is between two values is either in the range that was last time or changed this frame
+        int start = Math.min(changedStart, fractionStart), end = Math.max(changedEnd, fractionEnd);
+        int newFractionStart = Integer.MAX_VALUE, newFractionEnd = -1;
+        int[] out = dithered.pixels;
+        for (int idx = start; idx <= end; idx++) {
+            int channel = idx * 3;
+            int r = target[channel] + error[channel];
+            int g = target[channel + 1] + error[channel + 1];
+            int b = target[channel + 2] + error[channel + 2];
+            error[channel] = r & 0xFF;
+            error[channel + 1] = g & 0xFF;
+            error[channel + 2] = b & 0xFF;
+            out[idx] = ((r >> 8) << 16) | ((g >> 8) << 8) | (b >> 8);
+
+            if (((target[channel] | target[channel + 1] | target[channel + 2]) & 0xFF) != 0) {
+                newFractionStart = Math.min(newFractionStart, idx);
+                newFractionEnd = idx;
+            }
+        }
+        fractionStart = newFractionStart;
+        fractionEnd = newFractionEnd;
+
+        if (start <= end) {
+            dithered.markDirty(start, end);
+        }
+        return dithered;
+    }
+
+    /**
+     * @return where a channel shifted by {@code shift} in a packed color is among the three sent for an LED
+     */
+    private static int slot(int shift) {
+        return 2 - shift / 8;
+    }
+
+    /**
+     * @return a table of each channel value after gamma and white balance, in 8.8 fixed point
+     */
+    private static int[] table(double gamma, int whitePoint) {
+        int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (int) Math.round(Math.pow(i / 255.0, gamma) * whitePoint * 256);
+        }
+        return table;
+    }
+}
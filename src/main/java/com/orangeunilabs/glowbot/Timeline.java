@@ -0,0 +1,276 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.transition.Transition;
+import edu.wpi.first.wpilibj.Timer;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A scripted light show: a sequence of patterns that each run for a set time, optionally repeated and changed between
+ * with a {@link Transition}. A Timeline is an {@link LEDPattern} itself, so it is set on a section like any other
+ * pattern:
+ *
+ * <pre>{@code
+ * Timeline climbSuccess = new Timeline()
+ *         .add(new GB_Blinking(Color.kGreen, 0.1), 1.5)
+ *         .add(new GBRainbow(), 3, new GBCrossFade(0.5));
+ * section.setCurrentPattern(climbSuccess);
+ * }</pre>
+ *
+ * The timeline starts when it first runs on a section, and can be moved with {@link #seek(double)} or driven by
+ * another clock with {@link #setTimeSource(DoubleSupplier)}, i.e. to line up with {@link Timer#getMatchTime()}.
+ * Finding the segment for a time is a binary search, so long shows cost the same per frame as short ones. <br>
+ * Like other patterns, a Timeline keeps state, so each section needs its own.
+ */
+public final class Timeline implements LEDPattern {
+    private static final class Segment {
+        final LEDPattern pattern;
+        final double duration;
+        final int repeat;
+        final Transition transition;
+        /**
+         * When the segment starts, in seconds from the start of the timeline
+         */
+        final double start;
+
+        Segment(LEDPattern pattern, double duration, int repeat, Transition transition, double start) {
+            this.pattern = pattern;
+            this.duration = duration;
+            this.repeat = repeat;
+            this.transition = transition;
+            this.start = start;
+        }
+
+        double end() {
+            return start + duration * repeat;
+        }
+    }
+
+    /**
+     * Copy-on-write, so segments can be added from robot code while the timeline is playing
+     */
+    private volatile Segment[] segments = new Segment[0];
+    private volatile boolean looping = false;
+    private volatile DoubleSupplier timeSource = null;
+    /**
+     * A position requested with {@link #seek(double)}, or NaN
+     */
+    private volatile double pendingSeek = Double.NaN;
+
+    /* Playback state, only touched by the thread updating the section */
+    private double startTimestamp;
+    private Segment currentSegment = null;
+    private int currentRepetition = -1;
+    /**
+     * How many times a looping timeline has started over
+     */
+    private long currentLoop = -1;
+    private double patternNextRunTime;
+    private double nextRunTime = NEVER;
+    private volatile double time = 0;
+    private SectionTransition transitionState = null;
+
+    /**
+     * Add a segment that runs a pattern once
+     *
+     * @param pattern         the pattern to run
+     * @param durationSeconds how long to run it
+     * @return this timeline, for chaining
+     */
+    public Timeline add(LEDPattern pattern, double durationSeconds) {
+        return add(pattern, durationSeconds, 1, null);
+    }
+
+    /**
+     * Add a segment that runs a pattern once, changing to it from the previous segment with a transition
+     *
+     * @param pattern         the pattern to run
+     * @param durationSeconds how long to run it, including the transition
+     * @param transition      how to change to it, or null to switch immediately
+     * @return this timeline, for chaining
+     */
+    public Timeline add(LEDPattern pattern, double durationSeconds, Transition transition) {
+        return add(pattern, durationSeconds, 1, transition);
+    }
+
+    /**
+     * Add a segment
+     *
+     * @param pattern         the pattern to run
+     * @param durationSeconds how long to run it each time
+     * @param repeat          how many times in a row to run it. The pattern starts over (with {@code isFirstRun}) each
+     *                        time, but the transition only plays the first time.
+     * @param transition      how to change to it from the previous segment, or null to switch immediately
+     * @return this timeline, for chaining
+     */
+    public Timeline add(@NonNull LEDPattern pattern, double durationSeconds, int repeat, Transition transition) {
+        if (durationSeconds <= 0 || repeat < 1) {
+            throw new GlowbotException(String.format("Timeline: Invalid segment of %s seconds repeated %s times",
+                    durationSeconds, repeat));
+        }
+
+        synchronized (this) {
+            Segment[] current = segments;
+            double start = current.length == 0 ? 0 : current[current.length - 1].end();
+            Segment[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = new Segment(pattern, durationSeconds, repeat, transition, start);
+            segments = updated;
+        }
+        return this;
+    }
+
+    /**
+     * @param looping whether to start over after the last segment. Otherwise, the last segment's final frame stays on
+     *                the LEDs.
+     * @return this timeline, for chaining
+     */
+    public Timeline setLooping(boolean looping) {
+        this.looping = looping;
+        return this;
+    }
+
+    /**
+     * Take the time from another clock instead of the time since the timeline started. For example, to play an
+     * endgame show over the last 30 seconds of teleop: {@code setTimeSource(() -> 30 - Timer.getMatchTime())}. Times
+     * before 0 leave the LEDs alone until the timeline starts.
+     *
+     * @param timeSource returns the timeline's position in seconds, or null to go back to the time since it started
+     * @return this timeline, for chaining
+     */
+    public Timeline setTimeSource(DoubleSupplier timeSource) {
+        this.timeSource = timeSource;
+        return this;
+    }
+
+    /**
+     * Jump to a position on the next update. This has no effect while a time source is set. In adaptive mode, call
+     * {@link PatternSection#invalidate()} afterwards so the section updates right away.
+     *
+     * @param seconds the position, in seconds from the start of the timeline
+     */
+    public void seek(double seconds) {
+        pendingSeek = seconds;
+    }
+
+    /**
+     * @return the length of the timeline in seconds
+     */
+    public double getDuration() {
+        Segment[] current = segments;
+        return current.length == 0 ? 0 : current[current.length - 1].end();
+    }
+
+    /**
+     * @return the position of the timeline the last time it ran, in seconds
+     */
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        double timestamp = frame.getTimestamp();
+        if (isFirstRun) {
+            startTimestamp = timestamp;
+            currentSegment = null;
+            if (transitionState != null) {
+                transitionState.cancel();
+            }
+        }
+        double seek = pendingSeek;
+        if (!Double.isNaN(seek)) {
+            pendingSeek = Double.NaN;
+            startTimestamp = timestamp - seek;
+        }
+
+        DoubleSupplier source = timeSource;
+        double t = source != null ? source.getAsDouble() : timestamp - startTimestamp;
+        Segment[] current = segments;
+        double duration = current.length == 0 ? 0 : current[current.length - 1].end();
+        long loop = 0;
+        if (looping && duration > 0 && t >= 0) {
+            loop = (long) (t / duration);
+            t %= duration;
+        }
+        time = t;
+
+        int position = segmentAt(current, t);
+        if (position < 0 || position >= current.length) {
+            // Before the start or after the end, so leave the LEDs alone until there is something to show
+            currentSegment = null;
+            if (transitionState != null) {
+                transitionState.cancel();
+            }
+            nextRunTime = position < 0 && current.length > 0 ? timestamp - t : NEVER;
+            return;
+        }
+
+        Segment segment = current[position];
+        int repetition = Math.min((int) ((t - segment.start) / segment.duration), segment.repeat - 1);
+        // Starting over counts as a new segment even if the timeline is a single segment, so its pattern restarts too
+        boolean firstRun = segment != currentSegment || repetition != currentRepetition || loop != currentLoop;
+        if (segment != currentSegment) {
+            startSegment(section, segment, timestamp);
+        }
+        currentSegment = segment;
+        currentRepetition = repetition;
+        currentLoop = loop;
+
+        if (transitionState != null && transitionState.isRunning()) {
+            patternNextRunTime = transitionState.render(section, segment.pattern, frame)
+                    ? transitionState.getIncomingNextRunTime() : timestamp;
+        } else if (firstRun || timestamp >= patternNextRunTime) {
+            segment.pattern.runPattern(section, frame, firstRun);
+            patternNextRunTime = segment.pattern.getNextRunTime(frame);
+        }
+
+        // Wake up for the pattern, or the next repetition or segment, whichever comes first
+        double repetitionEnd = segment.start + segment.duration * (repetition + 1);
+        nextRunTime = Math.min(patternNextRunTime, timestamp + (repetitionEnd - t));
+    }
+
+    private void startSegment(GlowbotControllable section, Segment segment, double timestamp) {
+        if (segment.transition == null || currentSegment == null) {
+            if (transitionState != null) {
+                transitionState.cancel();
+            }
+            return;
+        }
+
+        if (transitionState == null || transitionState.getLength() != section.getLength()) {
+            transitionState = new SectionTransition(section.getLength());
+        }
+        transitionState.start(segment.transition, section, currentSegment.pattern, patternNextRunTime, timestamp);
+    }
+
+    @Override
+    public double getNextRunTime(FrameContext frame) {
+        // Another clock can jump at any time, so keep checking it
+        return timeSource != null ? frame.getTimestamp() : nextRunTime;
+    }
+
+    /**
+     * @return the position of the segment playing at time {@code t}: -1 before the first one, or the number of
+     * segments after the last one
+     */
+    private static int segmentAt(Segment[] segments, double t) {
+        if (segments.length == 0 || t < 0) {
+            return -1;
+        }
+        // Find the last segment that starts at or before t
+        int low = 0, high = segments.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments[mid].start <= t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int position = low - 1;
+        return t < segments[position].end() ? position : segments.length;
+    }
+}
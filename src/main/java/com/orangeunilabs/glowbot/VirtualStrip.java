@@ -0,0 +1,194 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.wpilibj.util.Color;
+import edu.wpi.first.wpilibj.util.Color8Bit;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A logical LED strip made out of part of the physical one, for robots with several separate LED runs daisy-chained
+ * onto the single strip the roboRIO can drive. Each virtual strip has its own indexes starting at 0, in the direction
+ * it was mapped, and its own sections. Create one with {@link GlowbotRio#createVirtualStrip(String, StripMapping)}.
+ * <p>
+ * Virtual strips are drawn into their own buffer, and each frame only the LEDs that changed are copied onto the
+ * physical strip through a precomputed index table.
+ */
+public final class VirtualStrip implements GlowbotControllable {
+    @Getter
+    private final String name;
+    /**
+     * The physical index of each virtual LED
+     */
+    private final int[] physicalIndexes;
+    final SectionSet sections;
+    /**
+     * The last complete frame published from the strip's buffer. Only touched by the thread rendering frames.
+     */
+    private final GlowbotLEDBuffer published;
+    private final PatternSection wholeStrip;
+
+    VirtualStrip(GlowbotRio glowbot, String name, int[] physicalIndexes) {
+        this.name = name;
+        this.physicalIndexes = physicalIndexes;
+        GlowbotLEDBuffer buffer = new GlowbotLEDBuffer(physicalIndexes.length, false);
+        sections = new SectionSet(buffer, glowbot::requestFrame);
+        published = new GlowbotLEDBuffer(physicalIndexes.length, false);
+        wholeStrip = new PatternSection(buffer, 0, physicalIndexes.length - 1, name);
+    }
+
+    /**
+     * @param index the index of an LED on this virtual strip
+     * @return the index of the same LED on the physical strip
+     */
+    public int getPhysicalIndex(int index) {
+        return physicalIndexes[index];
+    }
+
+    /**
+     * Get a new section of this virtual strip that does not overlap with its existing sections
+     *
+     * @param start the index of the first LED in the requested section, on this virtual strip
+     * @param end   the index of the last LED in the requested section, on this virtual strip
+     * @return if there are no overlapping sections, a new {@link PatternSection}. if there is overlap, returns null.
+     * @see GlowbotRio#getSection(int, int, boolean)
+     */
+    public PatternSection getSection(int start, int end) {
+        return getSection(start, end, false);
+    }
+
+    /**
+     * Get a new section of this virtual strip.
+     *
+     * @param start     the index of the first LED in the requested section, on this virtual strip
+     * @param end       the index of the last LED in the requested section, on this virtual strip
+     * @param supersede if the requested section overlaps with existing sections, take over the overlapping LEDs if
+     *                  this is true. If false, return null.
+     * @return null or a new {@link PatternSection}, depending on the value of `supersede`.
+     * @see GlowbotRio#getSection(int, int, boolean)
+     */
+    public PatternSection getSection(int start, int end, boolean supersede) {
+        return sections.getSection(start, end, supersede);
+    }
+
+    /**
+     * Remove a section so that its LEDs can be used by a new one. The LEDs keep whatever they last displayed.
+     *
+     * @param section the section to remove
+     * @return whether the section was removed; false if it did not belong to this strip
+     */
+    public boolean removeSection(PatternSection section) {
+        return sections.removeSection(section);
+    }
+
+    /**
+     * @param index the index of an LED on this virtual strip
+     * @return the section that controls the LED, or null
+     */
+    public PatternSection getSectionAt(int index) {
+        return sections.getSectionAt(index);
+    }
+
+    /**
+     * @return the sections on this virtual strip, in order. This is a snapshot, so it is safe to use while the
+     * notifier is running.
+     */
+    public List<PatternSection> getSections() {
+        return sections.getSections();
+    }
+
+    /**
+     * Copy the LEDs that changed since the last frame onto the physical strip. Only called from the render thread.
+     */
+    void mapInto(GlowbotLEDBuffer physical) {
+        if (sections.buffer.publishTo(published) == GlowbotLEDBuffer.PUBLISH_RETRY || !published.isDirty()) {
+            // A half-drawn frame stays dirty in the published copy and is mapped once it is complete
+            return;
+        }
+
+        int start = published.getDirtyStart(), end = published.getDirtyEnd();
+        published.clearDirty();
+        int[] pixels = published.pixels;
+        for (int idx = start; idx <= end; idx++) {
+            physical.setRGB(physicalIndexes[idx], pixels[idx]);
+        }
+    }
+
+    /* --------- Implemented Methods --------- */
+
+    @Override
+    public Color get(int index) {
+        return wholeStrip.get(index);
+    }
+
+    @Override
+    public Color8Bit get8Bit(int index) {
+        return wholeStrip.get8Bit(index);
+    }
+
+    @Override
+    public void set(int index, Color color) {
+        wholeStrip.set(index, color);
+    }
+
+    @Override
+    public void set(int index, Color8Bit color) {
+        wholeStrip.set(index, color);
+    }
+
+    @Override
+    public void setRange(int start, int end, Color8Bit color) {
+        wholeStrip.setRange(start, end, color);
+    }
+
+    @Override
+    public void setRange(int start, int end, Color color) {
+        wholeStrip.setRange(start, end, color);
+    }
+
+    @Override
+    public int getRGB(int index) {
+        return wholeStrip.getRGB(index);
+    }
+
+    @Override
+    public void setRGB(int index, int rgb) {
+        wholeStrip.setRGB(index, rgb);
+    }
+
+    @Override
+    public void fill(int start, int end, int rgb) {
+        wholeStrip.fill(start, end, rgb);
+    }
+
+    @Override
+    public void scale(int start, int end, int brightness) {
+        wholeStrip.scale(start, end, brightness);
+    }
+
+    @Override
+    public void setRGB(int start, int[] rgb, int offset, int count) {
+        wholeStrip.setRGB(start, rgb, offset, count);
+    }
+
+    @Override
+    public void forEachPixel(IntPixelConsumer action) {
+        wholeStrip.forEachPixel(action);
+    }
+
+    @Override
+    public int getLength() {
+        return physicalIndexes.length;
+    }
+
+    @Override
+    public Iterator<Pixel> iterator() {
+        return wholeStrip.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VirtualStrip %s (length: %d)", name, physicalIndexes.length);
+    }
+}
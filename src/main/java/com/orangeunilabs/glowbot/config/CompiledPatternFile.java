@@ -0,0 +1,70 @@
+package com.orangeunilabs.glowbot.config;
+
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of compiling a pattern file: the sections to create, each with its own ready to run pattern, and a way to
+ * create more instances of the file's named patterns. The sections never change, so a reload can swap it in one step.
+ */
+final class CompiledPatternFile {
+    static final class SectionSpec {
+        final String name;
+        final int start, end;
+        /**
+         * The pattern to start the section with, or null
+         */
+        final LEDPattern pattern;
+
+        SectionSpec(String name, int start, int end, LEDPattern pattern) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.pattern = pattern;
+        }
+    }
+
+    final List<SectionSpec> sections;
+    private final PatternCompiler compiler;
+
+    CompiledPatternFile(PatternCompiler compiler, List<SectionSpec> sections) {
+        this.compiler = compiler;
+        this.sections = sections;
+    }
+
+    /**
+     * @return the section with a name, or null
+     */
+    SectionSpec getSection(String name) {
+        for (SectionSpec section : sections) {
+            if (section.name.equals(name)) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the names of the file's patterns
+     */
+    Set<String> getPatternNames() {
+        return compiler.getPatternNames();
+    }
+
+    /**
+     * @return a new instance of a named pattern, or null if there is none with that name
+     */
+    LEDPattern newPattern(String name) {
+        return compiler.newPattern(name);
+    }
+
+    /**
+     * @return the name of a pattern from this file, or null if it is not an instance of one of the file's named
+     * patterns
+     */
+    String nameOf(LEDPattern pattern) {
+        return pattern == null ? null : compiler.nameOf(pattern);
+    }
+}
@@ -0,0 +1,312 @@
+package com.orangeunilabs.glowbot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.orangeunilabs.glowbot.GlowbotException;
+import com.orangeunilabs.glowbot.LEDUtils;
+import com.orangeunilabs.glowbot.Timeline;
+import com.orangeunilabs.glowbot.pattern.CachedPattern;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.pattern.builtin.GB2ColorAlternate;
+import com.orangeunilabs.glowbot.pattern.builtin.GBChaos;
+import com.orangeunilabs.glowbot.pattern.builtin.GBRainbow;
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import com.orangeunilabs.glowbot.pattern.builtin.GB_Blinking;
+import com.orangeunilabs.glowbot.transition.Easing;
+import com.orangeunilabs.glowbot.transition.Transition;
+import com.orangeunilabs.glowbot.transition.builtin.GBCrossFade;
+import com.orangeunilabs.glowbot.transition.builtin.GBDissolve;
+import com.orangeunilabs.glowbot.transition.builtin.GBWipe;
+import edu.wpi.first.wpilibj.util.Color;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Turns the JSON of a pattern file into a {@link CompiledPatternFile}. See {@link PatternFile} for the format. Every
+ * error is reported as a {@link GlowbotException} naming where in the file it is. <br>
+ * Patterns keep state for the section they run on, so every use of a named pattern is compiled into its own instance.
+ * The compiler stays with the compiled file to create more instances on request, which cannot fail since every
+ * definition was compiled once when the file was loaded.
+ */
+final class PatternCompiler {
+    private final int stripLength;
+    private final Map<String, JsonNode> definitions = new LinkedHashMap<>();
+    /**
+     * The name of every instance of a named pattern that has been created. Weak, so instances handed to robot code are
+     * not kept alive; the compiled pattern types do not override equals, so this compares identity.
+     */
+    private final Map<LEDPattern, String> names = new WeakHashMap<>();
+    /**
+     * Named patterns that are being compiled, to catch patterns that refer to themselves
+     */
+    private final Set<String> compiling = new HashSet<>();
+
+    private PatternCompiler(int stripLength) {
+        this.stripLength = stripLength;
+    }
+
+    /**
+     * @param root        the root of the file
+     * @param stripLength the number of LEDs the sections have to fit in
+     */
+    static CompiledPatternFile compile(JsonNode root, int stripLength) {
+        return new PatternCompiler(stripLength).compileFile(root);
+    }
+
+    private CompiledPatternFile compileFile(JsonNode root) {
+        if (!root.isObject()) {
+            throw error("", "the file must contain a JSON object");
+        }
+
+        JsonNode patternsNode = root.path("patterns");
+        if (!patternsNode.isMissingNode()) {
+            if (!patternsNode.isObject()) {
+                throw error("patterns", "must be an object of named patterns");
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = patternsNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                definitions.put(field.getKey(), field.getValue());
+            }
+        }
+        // Compile every definition once, so mistakes in patterns nothing uses yet are reported too
+        for (String name : definitions.keySet()) {
+            resolve(name, "patterns." + name);
+        }
+
+        List<CompiledPatternFile.SectionSpec> sections = new ArrayList<>();
+        JsonNode sectionsNode = root.path("sections");
+        if (!sectionsNode.isMissingNode()) {
+            if (!sectionsNode.isArray()) {
+                throw error("sections", "must be an array");
+            }
+            Set<String> names = new HashSet<>();
+            for (int i = 0; i < sectionsNode.size(); i++) {
+                CompiledPatternFile.SectionSpec section = compileSection(sectionsNode.get(i), "sections[" + i + "]");
+                if (!names.add(section.name)) {
+                    throw error("sections[" + i + "]", "there is already a section named '" + section.name + "'");
+                }
+                for (CompiledPatternFile.SectionSpec other : sections) {
+                    if (section.start <= other.end && section.end >= other.start) {
+                        throw error("sections[" + i + "]", "overlaps section '" + other.name + "'");
+                    }
+                }
+                sections.add(section);
+            }
+        }
+
+        return new CompiledPatternFile(this, Collections.unmodifiableList(sections));
+    }
+
+    /**
+     * @return the names of the file's patterns
+     */
+    Set<String> getPatternNames() {
+        return Collections.unmodifiableSet(definitions.keySet());
+    }
+
+    /**
+     * @return a new instance of a named pattern, or null if there is none with that name
+     */
+    synchronized LEDPattern newPattern(String name) {
+        return definitions.containsKey(name) ? resolve(name, "patterns." + name) : null;
+    }
+
+    /**
+     * @return the name of an instance of a named pattern, or null if it is not one
+     */
+    synchronized String nameOf(LEDPattern pattern) {
+        return names.get(pattern);
+    }
+
+    private CompiledPatternFile.SectionSpec compileSection(JsonNode node, String path) {
+        String name = requireText(node, "name", path);
+        int start = requireInt(node, "start", path);
+        int end = requireInt(node, "end", path);
+        if (start < 0 || end >= stripLength || end - start + 1 < 2) {
+            throw error(path, String.format("[%d, %d] is not a valid section of a %d LED strip", start, end, stripLength));
+        }
+        LEDPattern pattern = node.has("pattern") ? compilePattern(node.get("pattern"), path + ".pattern") : null;
+        return new CompiledPatternFile.SectionSpec(name, start, end, pattern);
+    }
+
+    /**
+     * Compile a pattern, which is either the name of a pattern in "patterns" or a pattern object
+     */
+    private LEDPattern compilePattern(JsonNode node, String path) {
+        if (node.isTextual()) {
+            return resolve(node.asText(), path);
+        }
+        if (!node.isObject()) {
+            throw error(path, "a pattern must be the name of a pattern or an object with a type");
+        }
+
+        String type = requireText(node, "type", path);
+        switch (type) {
+            case "solid":
+                return new GBSolid(requireColor(node, "color", path));
+            case "blinking":
+                return new GB_Blinking(requireColor(node, "color", path), requireSeconds(node, "duration", path));
+            case "alternate": {
+                JsonNode colors = node.path("colors");
+                if (!colors.isArray() || colors.size() != 2) {
+                    throw error(path + ".colors", "must be an array of 2 colors");
+                }
+                Color first = parseColor(colors.get(0), path + ".colors[0]");
+                Color second = parseColor(colors.get(1), path + ".colors[1]");
+                double duration = requireSeconds(node, "duration", path);
+                return node.has("length")
+                        ? new GB2ColorAlternate(first, second, requireInt(node, "length", path), duration)
+                        : new GB2ColorAlternate(first, second, duration);
+            }
+            case "rainbow": {
+                GBRainbow rainbow = new GBRainbow(node.path("huesPerSecond").asDouble(GBRainbow.DEFAULT_HUES_PER_SECOND));
+                return node.path("cached").asBoolean(false) ? new CachedPattern(rainbow) : rainbow;
+            }
+            case "chaos":
+                return node.has("seed") ? new GBChaos(node.get("seed").asLong()) : new GBChaos();
+            case "timeline":
+                return compileTimeline(node, path);
+            default:
+                throw error(path + ".type", "unknown pattern type '" + type + "'");
+        }
+    }
+
+    private Timeline compileTimeline(JsonNode node, String path) {
+        JsonNode segments = node.path("segments");
+        if (!segments.isArray() || segments.size() == 0) {
+            throw error(path + ".segments", "must be an array with at least one segment");
+        }
+
+        Timeline timeline = new Timeline().setLooping(node.path("loop").asBoolean(false));
+        for (int i = 0; i < segments.size(); i++) {
+            JsonNode segment = segments.get(i);
+            String segmentPath = path + ".segments[" + i + "]";
+            if (!segment.has("pattern")) {
+                throw error(segmentPath, "missing 'pattern'");
+            }
+            LEDPattern pattern = compilePattern(segment.get("pattern"), segmentPath + ".pattern");
+            Transition transition = segment.has("transition")
+                    ? compileTransition(segment.get("transition"), segmentPath + ".transition") : null;
+            int repeat = segment.has("repeat") ? requireInt(segment, "repeat", segmentPath) : 1;
+            if (repeat < 1) {
+                throw error(segmentPath + ".repeat", "must be at least 1");
+            }
+            timeline.add(pattern, requireSeconds(segment, "duration", segmentPath), repeat, transition);
+        }
+        return timeline;
+    }
+
+    private Transition compileTransition(JsonNode node, String path) {
+        String type = requireText(node, "type", path);
+        double duration = requireSeconds(node, "duration", path);
+        Easing easing = Easing.Linear;
+        if (node.has("easing")) {
+            String easingName = requireText(node, "easing", path);
+            try {
+                easing = Easing.valueOf(easingName);
+            } catch (IllegalArgumentException e) {
+                throw error(path + ".easing", "unknown easing '" + easingName + "'");
+            }
+        }
+
+        switch (type) {
+            case "crossfade":
+                return new GBCrossFade(duration, easing);
+            case "wipe":
+                return new GBWipe(duration, easing, node.path("reverse").asBoolean(false));
+            case "dissolve":
+                return new GBDissolve(duration, easing);
+            default:
+                throw error(path + ".type", "unknown transition type '" + type + "'");
+        }
+    }
+
+    /**
+     * Compile a new instance of a named pattern
+     */
+    private LEDPattern resolve(String name, String path) {
+        JsonNode definition = definitions.get(name);
+        if (definition == null) {
+            throw error(path, "there is no pattern named '" + name + "'");
+        }
+        if (!compiling.add(name)) {
+            throw error(path, "pattern '" + name + "' refers to itself");
+        }
+
+        LEDPattern pattern = compilePattern(definition, "patterns." + name);
+        compiling.remove(name);
+        names.put(pattern, name);
+        return pattern;
+    }
+
+    /* -------- Values -------- */
+
+    /**
+     * Colors are written as {@code "#RRGGBB"} or {@code [r, g, b]} with each channel in [0-255]
+     */
+    private static Color parseColor(JsonNode node, String path) {
+        if (node.isTextual()) {
+            String text = node.asText();
+            if (text.length() == 7 && text.charAt(0) == '#') {
+                try {
+                    return LEDUtils.toColor(Integer.parseInt(text.substring(1), 16));
+                } catch (NumberFormatException e) {
+                    // Reported below
+                }
+            }
+        } else if (node.isArray() && node.size() == 3) {
+            int r = node.get(0).asInt(-1), g = node.get(1).asInt(-1), b = node.get(2).asInt(-1);
+            if (isChannel(r) && isChannel(g) && isChannel(b)) {
+                return LEDUtils.toColor(LEDUtils.pack(r, g, b));
+            }
+        }
+        throw error(path, "colors must be \"#RRGGBB\" or [r, g, b] with each channel 0-255");
+    }
+
+    private static boolean isChannel(int value) {
+        return value >= 0 && value <= 255;
+    }
+
+    private static Color requireColor(JsonNode node, String field, String path) {
+        if (!node.has(field)) {
+            throw error(path, "missing '" + field + "'");
+        }
+        return parseColor(node.get(field), path + "." + field);
+    }
+
+    private static String requireText(JsonNode node, String field, String path) {
+        JsonNode value = node.path(field);
+        if (!value.isTextual()) {
+            throw error(path, "'" + field + "' must be a string");
+        }
+        return value.asText();
+    }
+
+    private static int requireInt(JsonNode node, String field, String path) {
+        JsonNode value = node.path(field);
+        if (!value.isInt()) {
+            throw error(path, "'" + field + "' must be an integer");
+        }
+        return value.asInt();
+    }
+
+    private static double requireSeconds(JsonNode node, String field, String path) {
+        JsonNode value = node.path(field);
+        if (!value.isNumber() || value.asDouble() <= 0) {
+            throw error(path, "'" + field + "' must be a positive number of seconds");
+        }
+        return value.asDouble();
+    }
+
+    private static GlowbotException error(String path, String message) {
+        return new GlowbotException(String.format("Glowbot(PatternFile): %s%s", path.isEmpty() ? "" : path + ": ", message));
+    }
+}
@@ -0,0 +1,259 @@
+package com.orangeunilabs.glowbot.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orangeunilabs.glowbot.GlowbotException;
+import com.orangeunilabs.glowbot.GlowbotRio;
+import com.orangeunilabs.glowbot.PatternSection;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sections and patterns described in a JSON file, so LED looks can be tweaked by redeploying the file instead of
+ * recompiling robot code. The file is compiled into ordinary {@link LEDPattern}s once when it is loaded, so running
+ * them costs exactly the same as patterns created in code. <br>
+ * An example {@code src/main/deploy/glowbot.json}:
+ *
+ * <pre>{@code
+ * {
+ *   "patterns": {
+ *     "idle": { "type": "rainbow", "cached": true },
+ *     "intaking": { "type": "blinking", "color": "#FF8000", "duration": 0.1 },
+ *     "hasNote": { "type": "solid", "color": [0, 255, 0] },
+ *     "climbed": {
+ *       "type": "timeline", "loop": true,
+ *       "segments": [
+ *         { "pattern": "hasNote", "duration": 1 },
+ *         { "pattern": "idle", "duration": 2, "transition": { "type": "crossfade", "duration": 0.5 } }
+ *       ]
+ *     }
+ *   },
+ *   "sections": [
+ *     { "name": "left", "start": 0, "end": 29, "pattern": "idle" },
+ *     { "name": "right", "start": 30, "end": 59, "pattern": "idle" }
+ *   ]
+ * }
+ * }</pre>
+ *
+ * Pattern types are {@code solid} (color), {@code blinking} (color, duration), {@code alternate} (colors, duration,
+ * optional length), {@code rainbow} (optional huesPerSecond and cached), {@code chaos} (optional seed), and
+ * {@code timeline} (segments of pattern, duration, optional repeat and transition, and optional loop). Transition types are
+ * {@code crossfade}, {@code wipe} (optional reverse) and {@code dissolve}, each with a duration and an optional
+ * {@link com.orangeunilabs.glowbot.transition.Easing easing}. Anywhere a pattern goes, it can be written inline or as
+ * the name of one in {@code patterns}. Patterns keep state for the section they run on, so every use of a named pattern
+ * gets its own instance of it. <br>
+ * Call {@link #reloadIfChanged()} periodically to pick up changes to the file while the robot is running. The new file
+ * is compiled completely before anything is changed, so a file with a mistake in it is reported and the old one keeps
+ * running.
+ */
+public final class PatternFile {
+    public static final String DEFAULT_FILE_NAME = "glowbot.json";
+    /**
+     * How often {@link #reloadIfChanged()} actually checks the file
+     */
+    public static final double RELOAD_CHECK_PERIOD_SECONDS = 1;
+
+    /**
+     * A compiled file and the sections it was applied to, swapped as a whole on reload
+     */
+    private static final class Loaded {
+        final CompiledPatternFile compiled;
+        final Map<String, PatternSection> sections;
+
+        Loaded(CompiledPatternFile compiled, Map<String, PatternSection> sections) {
+            this.compiled = compiled;
+            this.sections = sections;
+        }
+    }
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final GlowbotRio glowbot;
+    private final File file;
+    private volatile Loaded loaded;
+    private long lastModified;
+    private double lastCheckTime = 0;
+
+    private PatternFile(GlowbotRio glowbot, File file) {
+        this.glowbot = glowbot;
+        this.file = file;
+    }
+
+    /**
+     * Load {@value #DEFAULT_FILE_NAME} from the deploy directory
+     *
+     * @see #load(GlowbotRio, File)
+     */
+    public static PatternFile loadFromDeploy(GlowbotRio glowbot) {
+        return load(glowbot, new File(Filesystem.getDeployDirectory(), DEFAULT_FILE_NAME));
+    }
+
+    /**
+     * Load a pattern file, creating its sections on a GlowbotRio and starting their patterns. Sections in the file
+     * take over any LEDs they overlap, like {@link GlowbotRio#getSection(int, int, boolean)} with supersede.
+     *
+     * @param glowbot the GlowbotRio to create the sections on
+     * @param file    the file to load
+     * @return the loaded file
+     * @throws GlowbotException if the file cannot be read or has a mistake in it
+     */
+    public static PatternFile load(@NonNull GlowbotRio glowbot, @NonNull File file) {
+        PatternFile patternFile = new PatternFile(glowbot, file);
+        long modified = file.lastModified();
+        patternFile.apply(patternFile.compile());
+        patternFile.lastModified = modified;
+        return patternFile;
+    }
+
+    /**
+     * @param name the name of a pattern in the file's {@code patterns}
+     * @return a new instance of the pattern, or null if there is none with that name. Each call compiles a new
+     * instance, since a pattern can only run on one section at a time. After a reload, this returns the new pattern,
+     * and file sections running an instance from here switch to the new pattern too.
+     */
+    public LEDPattern getPattern(String name) {
+        return loaded.compiled.newPattern(name);
+    }
+
+    /**
+     * @return the names of the file's patterns
+     */
+    public Set<String> getPatternNames() {
+        return loaded.compiled.getPatternNames();
+    }
+
+    /**
+     * @param name the name of a section in the file
+     * @return the section, or null if there is none with that name. A reload that moves a section replaces it, so
+     * look sections up again rather than keeping them.
+     */
+    public PatternSection getSection(String name) {
+        return loaded.sections.get(name);
+    }
+
+    /**
+     * @return the file's sections by name
+     */
+    public Map<String, PatternSection> getSections() {
+        return loaded.sections;
+    }
+
+    /**
+     * Check whether the file changed, at most once every {@value #RELOAD_CHECK_PERIOD_SECONDS} seconds, and reload it
+     * if it did. This is cheap enough to call from robotPeriodic.
+     *
+     * @return whether the file was reloaded
+     */
+    public boolean reloadIfChanged() {
+        double now = Timer.getFPGATimestamp();
+        if (now - lastCheckTime < RELOAD_CHECK_PERIOD_SECONDS) {
+            return false;
+        }
+        lastCheckTime = now;
+
+        long modified = file.lastModified();
+        if (modified == lastModified) {
+            return false;
+        }
+        lastModified = modified;
+        return reload();
+    }
+
+    /**
+     * Read and compile the file again, and swap it in. Sections that kept their name and LEDs keep running. One that is
+     * still running the pattern the file gave it switches to the pattern the new file gives it, and one that robot code
+     * switched to a pattern from {@link #getPattern(String)} switches to the new version of that pattern. Anything else
+     * robot code set is left alone. If the file cannot be read or has a mistake in it, the error is reported to the
+     * driver station and nothing changes.
+     *
+     * @return whether the file was reloaded
+     */
+    public boolean reload() {
+        CompiledPatternFile compiled;
+        try {
+            compiled = compile();
+        } catch (GlowbotException e) {
+            DriverStation.reportError(e.getMessage(), false);
+            return false;
+        }
+        apply(compiled);
+        return true;
+    }
+
+    private CompiledPatternFile compile() {
+        JsonNode root;
+        try {
+            root = mapper.readTree(file);
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(PatternFile): Could not read %s: %s", file, e.getMessage()));
+        }
+        return PatternCompiler.compile(root, glowbot.getLength());
+    }
+
+    /**
+     * Swap in a compiled file. Sections are changed one at a time, so this is done inside a frame: the strip keeps
+     * showing the old file until every section has been changed, then shows the new one all at once.
+     */
+    private synchronized void apply(CompiledPatternFile compiled) {
+        glowbot.beginFrame();
+        try {
+            Loaded previous = loaded;
+            Map<String, PatternSection> previousSections =
+                    previous != null ? previous.sections : Collections.emptyMap();
+            Map<String, PatternSection> sections = new LinkedHashMap<>();
+
+            // Keep sections that did not move, and remove the rest before creating new ones in their place
+            HashMap<String, PatternSection> kept = new HashMap<>();
+            for (CompiledPatternFile.SectionSpec spec : compiled.sections) {
+                PatternSection section = previousSections.get(spec.name);
+                if (section != null && section.getStartIndex() == spec.start && section.getEndIndex() == spec.end) {
+                    kept.put(spec.name, section);
+                }
+            }
+            for (Map.Entry<String, PatternSection> entry : previousSections.entrySet()) {
+                if (kept.get(entry.getKey()) != entry.getValue()) {
+                    glowbot.removeSection(entry.getValue());
+                }
+            }
+
+            for (CompiledPatternFile.SectionSpec spec : compiled.sections) {
+                PatternSection section = kept.get(spec.name);
+                if (section == null) {
+                    section = glowbot.getSection(spec.start, spec.end, true);
+                    section.setName(spec.name);
+                    section.setCurrentPattern(spec.pattern);
+                } else {
+                    LEDPattern current = section.getCurrentPattern();
+                    // The instance the section got from the file the last time it was applied
+                    LEDPattern assigned = previous.compiled.getSection(spec.name).pattern;
+                    String running = previous.compiled.nameOf(current);
+                    if (current == assigned) {
+                        // Still running what the file gave it, so it runs what the file gives it now
+                        section.setCurrentPattern(spec.pattern);
+                    } else if (running != null) {
+                        // Robot code switched it to a pattern from getPattern, so follow that to its new version.
+                        // Anything else robot code set directly is left alone.
+                        LEDPattern updated = compiled.newPattern(running);
+                        section.setCurrentPattern(updated != null ? updated : spec.pattern);
+                    }
+                }
+                sections.put(spec.name, section);
+            }
+
+            loaded = new Loaded(compiled, Collections.unmodifiableMap(sections));
+        } finally {
+            glowbot.commitFrame();
+        }
+    }
+}
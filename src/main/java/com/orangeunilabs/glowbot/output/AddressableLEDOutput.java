@@ -0,0 +1,79 @@
+package com.orangeunilabs.glowbot.output;
+
+import com.orangeunilabs.glowbot.GlowbotLEDBuffer;
+import com.orangeunilabs.glowbot.GlowbotRioConfig;
+import edu.wpi.first.wpilibj.AddressableLED;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Drives a strip plugged into one of the roboRIO's PWM ports with WPILib's {@link AddressableLED}
+ */
+public final class AddressableLEDOutput implements LEDOutput {
+    private static int instanceCount = 0;
+
+    private final GlowbotRioConfig config;
+    private AddressableLED ledStrip;
+    /**
+     * Holds the bytes handed to the strip. Only the LEDs that changed are converted each frame.
+     */
+    private GlowbotLEDBuffer wireBuffer;
+
+    /**
+     * @param config the port and bit timings of the strip
+     */
+    public AddressableLEDOutput(GlowbotRioConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void open(int length) {
+        instanceCount++;
+        if (instanceCount > 1) {
+            // WPILib & the roboRio currently only support running 1 Addressable LED strip directly.
+            DriverStation.reportWarning("GlowbotRio Warning: More than 1 instance created! This is not supported by the roboRio! " +
+                    "Daisy-chain the strips and use virtual strips instead.", true);
+        }
+
+        ledStrip = new AddressableLED(config.port);
+        ledStrip.setLength(length);
+        if (config.hasAlternateBitTiming()) {
+            ledStrip.setBitTiming(config.getHighTime0(), config.getLowTime0(), config.getHighTime1(),
+                    config.getLowTime1());
+        }
+        wireBuffer = new GlowbotLEDBuffer(length);
+    }
+
+    @Override
+    public void setData(int[] frame, int start, int end) {
+        wireBuffer.setRGB(start, frame, start, end - start + 1);
+        ledStrip.setData(wireBuffer);
+    }
+
+    @Override
+    public void start() {
+        ledStrip.start();
+    }
+
+    @Override
+    public void stop() {
+        ledStrip.stop();
+    }
+
+    /**
+     * @see GlowbotRioConfig#getMaxRefreshRateHertz()
+     */
+    @Override
+    public double getMaxRefreshRateHertz() {
+        return config.getMaxRefreshRateHertz();
+    }
+
+    @Override
+    public void close() {
+        ledStrip.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("port: %d", config.port);
+    }
+}
@@ -0,0 +1,88 @@
+package com.orangeunilabs.glowbot.output;
+
+/**
+ * The wire format shared by {@link UdpOutput}, {@link SerialOutput} and {@link UdpFrameReceiver}. Each packet updates
+ * a run of LEDs: {@link #MAGIC}, the strip length, the index of the first LED and the number of LEDs (each an unsigned
+ * 16-bit big-endian number), then 3 bytes (red, green, blue) per LED.
+ */
+final class FramePacket {
+    /**
+     * "GBLD", the first 4 bytes of every packet. On a serial stream, receivers can find the start of a packet with it.
+     */
+    static final int MAGIC = 0x47424C44;
+    static final int HEADER_BYTES = 10;
+    /**
+     * The most LEDs a packet can hold
+     */
+    static final int MAX_COUNT = 0xFFFF;
+
+    private FramePacket() {
+    }
+
+    /**
+     * Write a packet for the LEDs [start, start + count) into {@code packet}, which must have room for
+     * {@code HEADER_BYTES + count * 3} bytes
+     *
+     * @return the size of the packet in bytes
+     */
+    static int encode(int[] frame, int length, int start, int count, byte[] packet) {
+        writeInt(packet, 0, MAGIC);
+        writeShort(packet, 4, length);
+        writeShort(packet, 6, start);
+        writeShort(packet, 8, count);
+
+        int position = HEADER_BYTES;
+        for (int idx = start; idx < start + count; idx++) {
+            int rgb = frame[idx];
+            packet[position] = (byte) (rgb >> 16);
+            packet[position + 1] = (byte) (rgb >> 8);
+            packet[position + 2] = (byte) rgb;
+            position += 3;
+        }
+        return position;
+    }
+
+    /**
+     * @return the strip length from a packet's header, or -1 if it is not a valid packet
+     */
+    static int length(byte[] packet, int size) {
+        if (size < HEADER_BYTES || readInt(packet, 0) != MAGIC) {
+            return -1;
+        }
+        int length = readShort(packet, 4);
+        int start = readShort(packet, 6);
+        int count = readShort(packet, 8);
+        return start + count <= length && size >= HEADER_BYTES + count * 3 ? length : -1;
+    }
+
+    /**
+     * Copy the LEDs in a valid packet into a frame of the packet's length
+     */
+    static void decode(byte[] packet, int[] frame) {
+        int start = readShort(packet, 6);
+        int count = readShort(packet, 8);
+        int position = HEADER_BYTES;
+        for (int idx = start; idx < start + count; idx++) {
+            frame[idx] = (packet[position] & 0xFF) << 16 | (packet[position + 1] & 0xFF) << 8 | (packet[position + 2] & 0xFF);
+            position += 3;
+        }
+    }
+
+    private static void writeInt(byte[] packet, int offset, int value) {
+        writeShort(packet, offset, value >>> 16);
+        writeShort(packet, offset + 2, value);
+    }
+
+    private static void writeShort(byte[] packet, int offset, int value) {
+        packet[offset] = (byte) (value >> 8);
+        packet[offset + 1] = (byte) value;
+    }
+
+    private static int readInt(byte[] packet, int offset) {
+        return readShort(packet, offset) << 16 | readShort(packet, offset + 2);
+    }
+
+    private static int readShort(byte[] packet, int offset) {
+        return (packet[offset] & 0xFF) << 8 | (packet[offset + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,69 @@
+package com.orangeunilabs.glowbot.output;
+
+import com.orangeunilabs.glowbot.ColorOrder;
+import com.orangeunilabs.glowbot.GlowbotRio;
+import com.orangeunilabs.glowbot.GlowbotRioConfig;
+
+/**
+ * Where a {@link GlowbotRio} sends its frames. By default this is the roboRIO's own {@link AddressableLEDOutput}, but
+ * frames can just as well go to memory ({@link MemoryOutput}) or to a strip driven by a coprocessor
+ * ({@link UdpOutput}, {@link SerialOutput}) without changing any pattern or section code.
+ * <p>
+ * All methods but {@link #getMaxRefreshRateHertz()} and {@link #getKeepAlivePeriodSeconds()} are only called by the GlowbotRio, from the thread rendering
+ * frames or while it is being created or closed.
+ */
+public interface LEDOutput extends AutoCloseable {
+    /**
+     * Get ready to drive a strip. Called once, before anything else.
+     *
+     * @param length the number of LEDs on the strip
+     */
+    void open(int length);
+
+    /**
+     * Send a frame to the strip. Only called for frames that changed. Frames are still handed over while the output
+     * is stopped, so it has the latest one when it is started again.
+     *
+     * @param frame the color of every LED packed as {@code 0xRRGGBB}. The array is reused for the next frame, so copy
+     *              anything that has to outlive the call.
+     * @param start the first LED that changed since the last frame
+     * @param end   the last LED that changed since the last frame. LEDs outside [start, end] are the same as last time,
+     *              so outputs that can update part of a strip only need to send those.
+     */
+    void setData(int[] frame, int start, int end);
+
+    /**
+     * Start driving the strip
+     */
+    void start();
+
+    /**
+     * Stop driving the strip. Frames are not sent until it is started again.
+     */
+    void stop();
+
+    /**
+     * @return the fastest rate that frames can usefully be sent, in Hertz. Updating faster than this just wastes CPU.
+     */
+    double getMaxRefreshRateHertz();
+
+    /**
+     * @return how long the frame on the strip may go without being sent again, in seconds, or 0 if sending it once is
+     * enough. Outputs that can lose frames use this so a lost one does not stay on the strip while nothing changes.
+     */
+    default double getKeepAlivePeriodSeconds() {
+        return 0;
+    }
+
+    /**
+     * @return the order the channels of each packed color are sent to the strip in. Frames are corrected for the
+     * {@link GlowbotRioConfig#setColorOrder(ColorOrder) chip's order} against this. The roboRIO's PWM output sends
+     * green, red, blue.
+     */
+    default ColorOrder getWireOrder() {
+        return ColorOrder.GRB;
+    }
+
+    @Override
+    void close();
+}
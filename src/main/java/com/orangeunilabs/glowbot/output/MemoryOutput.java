@@ -0,0 +1,93 @@
+package com.orangeunilabs.glowbot.output;
+
+/**
+ * Keeps the last frame in memory instead of driving a strip, i.e. to check what a {@link com.orangeunilabs.glowbot.GlowbotRio}
+ * pushed in a unit test or simulation. Reading it while the notifier is running may see a frame part way through
+ * being copied.
+ */
+public final class MemoryOutput implements LEDOutput {
+    private final double maxRefreshRateHertz;
+    private int[] frame = new int[0];
+    private volatile long frameCount = 0;
+    private volatile boolean started = false;
+    private volatile boolean closed = false;
+
+    /**
+     * An output with no limit on the refresh rate
+     */
+    public MemoryOutput() {
+        this(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param maxRefreshRateHertz the refresh rate to report, i.e. to match the strip being stood in for
+     */
+    public MemoryOutput(double maxRefreshRateHertz) {
+        this.maxRefreshRateHertz = maxRefreshRateHertz;
+    }
+
+    @Override
+    public void open(int length) {
+        frame = new int[length];
+    }
+
+    @Override
+    public void setData(int[] frame, int start, int end) {
+        System.arraycopy(frame, start, this.frame, start, end - start + 1);
+        frameCount++;
+    }
+
+    /**
+     * @return the color of an LED in the last frame, packed as {@code 0xRRGGBB}
+     */
+    public int getRGB(int index) {
+        return frame[index];
+    }
+
+    /**
+     * @return a copy of the last frame, packed as {@code 0xRRGGBB}
+     */
+    public int[] getFrame() {
+        return frame.clone();
+    }
+
+    /**
+     * @return the number of frames that have been sent
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void start() {
+        started = true;
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+    }
+
+    @Override
+    public double getMaxRefreshRateHertz() {
+        return maxRefreshRateHertz;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public String toString() {
+        return "memory";
+    }
+}
@@ -0,0 +1,113 @@
+package com.orangeunilabs.glowbot.output;
+
+import com.orangeunilabs.glowbot.ColorOrder;
+import com.orangeunilabs.glowbot.GlowbotException;
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.io.IOException;
+
+/**
+ * An output that streams {@link FramePacket}s to a coprocessor. Only the LEDs that changed are sent, split into
+ * packets of at most {@link #maxLedsPerPacket} LEDs, and the whole frame is resent every
+ * {@value #FULL_FRAME_INTERVAL} frames so a lost packet does not leave LEDs wrong for long. While nothing changes,
+ * the GlowbotRio resends the whole frame every {@value #KEEP_ALIVE_PERIOD_SECONDS} seconds instead.
+ */
+abstract class PacketOutput implements LEDOutput {
+    static final int FULL_FRAME_INTERVAL = 50;
+    static final double KEEP_ALIVE_PERIOD_SECONDS = 1;
+
+    private final int maxLedsPerPacket;
+    private byte[] packet;
+    /**
+     * The length of the strip, once it is open
+     */
+    int length;
+    private volatile boolean started = false;
+    private int framesSinceFull = 0;
+    private boolean sendFull = true;
+    private boolean reportedError = false;
+
+    PacketOutput(int maxLedsPerPacket) {
+        this.maxLedsPerPacket = maxLedsPerPacket;
+    }
+
+    /**
+     * Open the connection to the coprocessor
+     */
+    abstract void connect() throws IOException;
+
+    /**
+     * Send the first {@code size} bytes of a packet
+     */
+    abstract void send(byte[] packet, int size) throws IOException;
+
+    @Override
+    public void open(int length) {
+        if (length > FramePacket.MAX_COUNT) {
+            throw new GlowbotException(String.format("Glowbot(%s): Strips can be at most %s LEDs",
+                    getClass().getSimpleName(), FramePacket.MAX_COUNT));
+        }
+        try {
+            connect();
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(%s): Could not connect to %s: %s",
+                    getClass().getSimpleName(), this, e.getMessage()));
+        }
+        this.length = length;
+        packet = new byte[FramePacket.HEADER_BYTES + Math.min(length, maxLedsPerPacket) * 3];
+    }
+
+    @Override
+    public void setData(int[] frame, int start, int end) {
+        if (!started) {
+            // The coprocessor misses whatever changes meanwhile
+            sendFull = true;
+            return;
+        }
+        if (sendFull || ++framesSinceFull >= FULL_FRAME_INTERVAL || (start == 0 && end == length - 1)) {
+            start = 0;
+            end = length - 1;
+            framesSinceFull = 0;
+            sendFull = false;
+        }
+
+        try {
+            for (int first = start; first <= end; first += maxLedsPerPacket) {
+                int count = Math.min(end - first + 1, maxLedsPerPacket);
+                send(packet, FramePacket.encode(frame, length, first, count, packet));
+            }
+            reportedError = false;
+        } catch (IOException e) {
+            sendFull = true;
+            // Only report the first failure, rather than every frame until the coprocessor comes back
+            if (!reportedError) {
+                reportedError = true;
+                DriverStation.reportError(String.format("Glowbot(%s): Could not send to %s: %s",
+                        getClass().getSimpleName(), this, e.getMessage()), false);
+            }
+        }
+    }
+
+    @Override
+    public double getKeepAlivePeriodSeconds() {
+        return KEEP_ALIVE_PERIOD_SECONDS;
+    }
+
+    /**
+     * @return {@link ColorOrder#RGB}, the order {@link FramePacket}s carry each LED's channels in
+     */
+    @Override
+    public ColorOrder getWireOrder() {
+        return ColorOrder.RGB;
+    }
+
+    @Override
+    public void start() {
+        started = true;
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.orangeunilabs.glowbot.output;
+
+import edu.wpi.first.wpilibj.SerialPort;
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Streams frames over one of the roboRIO's serial ports to a microcontroller that drives the strip. The packets are
+ * the same as {@link UdpOutput}'s; receivers find the start of each one by its magic number.
+ */
+public final class SerialOutput extends PacketOutput {
+    /**
+     * Serial data is 10 bits per byte on the wire, with the start and stop bits
+     */
+    private static final int BITS_PER_BYTE = 10;
+
+    private final SerialPort.Port port;
+    private final int baudRate;
+    private SerialPort serialPort;
+
+    /**
+     * @param port     the serial port the microcontroller is connected to
+     * @param baudRate the baud rate, i.e. 1000000
+     */
+    public SerialOutput(@NonNull SerialPort.Port port, int baudRate) {
+        super(FramePacket.MAX_COUNT);
+        this.port = port;
+        this.baudRate = baudRate;
+    }
+
+    @Override
+    void connect() {
+        serialPort = new SerialPort(baudRate, port);
+        serialPort.setWriteBufferMode(SerialPort.WriteBufferMode.kFlushOnAccess);
+    }
+
+    @Override
+    void send(byte[] packet, int size) throws IOException {
+        int written = serialPort.write(packet, size);
+        if (written != size) {
+            throw new IOException(String.format("only %s of %s bytes were written", written, size));
+        }
+    }
+
+    /**
+     * @return how many whole frames per second fit through the serial port
+     */
+    @Override
+    public double getMaxRefreshRateHertz() {
+        return (double) baudRate / BITS_PER_BYTE / (FramePacket.HEADER_BYTES + length * 3);
+    }
+
+    @Override
+    public void close() {
+        if (serialPort != null) {
+            serialPort.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("serial: %s", port);
+    }
+}
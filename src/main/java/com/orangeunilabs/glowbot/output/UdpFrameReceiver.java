@@ -0,0 +1,91 @@
+package com.orangeunilabs.glowbot.output;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+
+/**
+ * The receiving end of a {@link UdpOutput}, for a coprocessor that drives the strip or to check what a robot is
+ * sending. Each packet updates a run of LEDs in the receiver's frame. <br>
+ * Packets start with the magic number {@code "GBLD"}, then the strip length, the index of the first LED and the
+ * number of LEDs as unsigned 16-bit big-endian numbers, then 3 bytes (red, green, blue) per LED, so receivers can also
+ * be written in other languages.
+ */
+public final class UdpFrameReceiver implements AutoCloseable {
+    private final DatagramSocket socket;
+    private final DatagramPacket datagram;
+    private int[] frame = new int[0];
+
+    /**
+     * @param port the UDP port to listen on
+     * @throws IOException if the port cannot be opened
+     */
+    public UdpFrameReceiver(int port) throws IOException {
+        socket = new DatagramSocket(port);
+        byte[] buffer = new byte[FramePacket.HEADER_BYTES + FramePacket.MAX_COUNT * 3];
+        datagram = new DatagramPacket(buffer, buffer.length);
+    }
+
+    /**
+     * Wait for a packet and apply it to the frame. Packets that are not from a {@link UdpOutput} are ignored.
+     *
+     * @param timeoutMillis how long to wait, or 0 to wait forever
+     * @return whether a packet was applied
+     * @throws IOException if the socket fails
+     */
+    public boolean receive(int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+        datagram.setLength(datagram.getData().length);
+        try {
+            socket.receive(datagram);
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+
+        byte[] packet = datagram.getData();
+        int length = FramePacket.length(packet, datagram.getLength());
+        if (length < 0) {
+            return false;
+        }
+        if (length != frame.length) {
+            frame = Arrays.copyOf(frame, length);
+        }
+        FramePacket.decode(packet, frame);
+        return true;
+    }
+
+    /**
+     * @return the local port the receiver listens on
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * @return the length of the strip, from the last packet received
+     */
+    public int getLength() {
+        return frame.length;
+    }
+
+    /**
+     * @return the color of an LED packed as {@code 0xRRGGBB}
+     */
+    public int getRGB(int index) {
+        return frame[index];
+    }
+
+    /**
+     * @return the frame, packed as {@code 0xRRGGBB}. Reused by the next {@link #receive(int)}.
+     */
+    public int[] getFrame() {
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,77 @@
+package com.orangeunilabs.glowbot.output;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+
+/**
+ * Streams frames over UDP to a coprocessor that drives the strip, i.e. for strips too long or too fast for the
+ * roboRIO's PWM output. Packets are kept small enough not to be fragmented. See {@link UdpFrameReceiver} for the
+ * receiving end.
+ */
+public final class UdpOutput extends PacketOutput {
+    /**
+     * FRC robots may use ports 5800-5810 for team use
+     */
+    public static final int DEFAULT_PORT = 5805;
+    public static final double DEFAULT_MAX_REFRESH_RATE_HERTZ = 200;
+    /**
+     * Keeps packets under a 1500 byte MTU
+     */
+    static final int MAX_LEDS_PER_PACKET = 480;
+
+    private final InetSocketAddress address;
+    private final double maxRefreshRateHertz;
+    private DatagramSocket socket;
+    private DatagramPacket datagram;
+
+    /**
+     * @param host the coprocessor's host name or address
+     * @param port the UDP port it listens on
+     */
+    public UdpOutput(String host, int port) {
+        this(new InetSocketAddress(host, port), DEFAULT_MAX_REFRESH_RATE_HERTZ);
+    }
+
+    /**
+     * @param address             where to send frames
+     * @param maxRefreshRateHertz how fast the coprocessor can refresh the strip
+     */
+    public UdpOutput(@NonNull InetSocketAddress address, double maxRefreshRateHertz) {
+        super(MAX_LEDS_PER_PACKET);
+        this.address = address;
+        this.maxRefreshRateHertz = maxRefreshRateHertz;
+    }
+
+    @Override
+    void connect() throws IOException {
+        socket = new DatagramSocket();
+        datagram = new DatagramPacket(new byte[0], 0, address);
+    }
+
+    @Override
+    void send(byte[] packet, int size) throws IOException {
+        datagram.setData(packet, 0, size);
+        socket.send(datagram);
+    }
+
+    @Override
+    public double getMaxRefreshRateHertz() {
+        return maxRefreshRateHertz;
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("udp: %s", address);
+    }
+}
@@ -0,0 +1,116 @@
+package com.orangeunilabs.glowbot.pattern;
+
+import com.orangeunilabs.glowbot.FrameContext;
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Caches the output of a {@link PeriodicPattern}. Each distinct frame is drawn by the pattern once, the first time it
+ * comes up, and after that it is copied out of the {@link FrameCache} in bulk. Once a full cycle has been seen, even an
+ * expensive procedural pattern costs about as much as a solid fill. <br>
+ * If the pattern does not fit in the cache's budget, or its frames were evicted, it runs uncached until it is
+ * restarted, rather than evicting something else to make room again every frame. <br>
+ * One CachedPattern can be shared by sections of different lengths; the frames for each length are cached separately.
+ */
+public class CachedPattern implements LEDPattern {
+    /**
+     * The cached frames for one section length
+     */
+    private static final class Slot {
+        final int length;
+        FrameCache.Entry entry = null;
+        /**
+         * Whether the frames were evicted or did not fit, so the pattern runs uncached until it is restarted
+         */
+        boolean backedOff = false;
+
+        Slot(int length) {
+            this.length = length;
+        }
+    }
+
+    private final PeriodicPattern pattern;
+    private final FrameCache cache;
+    /**
+     * One per section length this pattern has run on, which is almost always just one. Only touched by the thread
+     * that updates the sections.
+     */
+    private Slot[] slots = new Slot[0];
+
+    /**
+     * Cache a pattern in the {@link FrameCache#getDefault() default cache}
+     *
+     * @param pattern the pattern to cache
+     */
+    public CachedPattern(PeriodicPattern pattern) {
+        this(pattern, FrameCache.getDefault());
+    }
+
+    /**
+     * @param pattern the pattern to cache
+     * @param cache   the cache to keep its frames in
+     */
+    public CachedPattern(@NonNull PeriodicPattern pattern, @NonNull FrameCache cache) {
+        this.pattern = pattern;
+        this.cache = cache;
+    }
+
+    @Override
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        int length = section.getLength();
+        Slot slot = slotFor(length);
+        FrameCache.Entry current = slot.entry;
+        if (current != null && current.evicted) {
+            // Another pattern needed the room. Taking it back right away would just evict that one in turn.
+            slot.entry = current = null;
+            slot.backedOff = true;
+        }
+        if (isFirstRun) {
+            slot.backedOff = false;
+        }
+        if (current == null && !slot.backedOff) {
+            current = slot.entry = cache.allocate(pattern.getFrameCount(), length);
+            slot.backedOff = current == null;
+        }
+
+        if (current == null) {
+            pattern.runPattern(section, frame, isFirstRun);
+            return;
+        }
+
+        current.lastUsed = System.nanoTime();
+        int index = pattern.getFrameIndex(frame);
+        int offset = index * length;
+        if (current.rendered[index]) {
+            section.setRGB(0, current.frames, offset, length);
+            return;
+        }
+
+        // Draw the frame for real, then keep what was drawn
+        pattern.runPattern(section, frame, isFirstRun);
+        int[] frames = current.frames;
+        for (int idx = 0; idx < length; idx++) {
+            frames[offset + idx] = section.getRGB(idx);
+        }
+        current.rendered[index] = true;
+    }
+
+    private Slot slotFor(int length) {
+        for (Slot slot : slots) {
+            if (slot.length == length) {
+                return slot;
+            }
+        }
+        Slot slot = new Slot(length);
+        slots = Arrays.copyOf(slots, slots.length + 1);
+        slots[slots.length - 1] = slot;
+        return slot;
+    }
+
+    @Override
+    public double getNextRunTime(FrameContext frame) {
+        return pattern.getNextRunTime(frame);
+    }
+}
@@ -0,0 +1,123 @@
+package com.orangeunilabs.glowbot.pattern;
+
+import java.util.ArrayList;
+
+/**
+ * Memory for {@link CachedPattern}s, shared between every section that uses it. When a new pattern needs more than
+ * is left in the budget, the patterns that were least recently drawn are evicted and run uncached until they are
+ * restarted.
+ */
+public final class FrameCache {
+    /**
+     * The budget of {@link #getDefault()}, enough for a full {@link com.orangeunilabs.glowbot.pattern.builtin.GBRainbow}
+     * cycle on about 1400 LEDs
+     */
+    public static final long DEFAULT_BUDGET_BYTES = 1 << 20;
+    private static final FrameCache defaultCache = new FrameCache(DEFAULT_BUDGET_BYTES);
+
+    /**
+     * The frames of one pattern on sections of one length
+     */
+    static final class Entry {
+        final int length;
+        /**
+         * Frame i is stored at [i * length, (i + 1) * length)
+         */
+        final int[] frames;
+        final boolean[] rendered;
+        volatile long lastUsed;
+        volatile boolean evicted = false;
+
+        Entry(int frameCount, int length) {
+            this.length = length;
+            frames = new int[frameCount * length];
+            rendered = new boolean[frameCount];
+        }
+
+        long sizeBytes() {
+            return (long) frames.length * Integer.BYTES + rendered.length;
+        }
+    }
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private long budgetBytes;
+    private long usedBytes = 0;
+
+    /**
+     * @param budgetBytes how much memory the cached frames may use in total
+     */
+    public FrameCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return the cache used by {@link CachedPattern}s that were not given one
+     */
+    public static FrameCache getDefault() {
+        return defaultCache;
+    }
+
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Change the budget, evicting patterns if the cache is now over it
+     *
+     * @param budgetBytes how much memory the cached frames may use in total
+     */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        evictUntil(budgetBytes);
+    }
+
+    /**
+     * @return how much memory the cached frames use right now
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Evict every pattern
+     */
+    public synchronized void clear() {
+        evictUntil(0);
+    }
+
+    /**
+     * Make room for a pattern's frames
+     *
+     * @return the new entry, or null if the frames would not fit even in an empty cache
+     */
+    synchronized Entry allocate(int frameCount, int length) {
+        long size = (long) frameCount * length * Integer.BYTES + frameCount;
+        if (size > budgetBytes) {
+            return null;
+        }
+        evictUntil(budgetBytes - size);
+
+        Entry entry = new Entry(frameCount, length);
+        entry.lastUsed = System.nanoTime();
+        entries.add(entry);
+        usedBytes += size;
+        return entry;
+    }
+
+    /**
+     * Evict the least recently used entries until no more than {@code limit} bytes are used
+     */
+    private void evictUntil(long limit) {
+        while (usedBytes > limit && !entries.isEmpty()) {
+            int oldest = 0;
+            for (int i = 1; i < entries.size(); i++) {
+                if (entries.get(i).lastUsed < entries.get(oldest).lastUsed) {
+                    oldest = i;
+                }
+            }
+            Entry entry = entries.remove(oldest);
+            entry.evicted = true;
+            usedBytes -= entry.sizeBytes();
+        }
+    }
+}
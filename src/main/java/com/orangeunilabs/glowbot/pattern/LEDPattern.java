@@ -1,10 +1,38 @@
 package com.orangeunilabs.glowbot.pattern;
 
+import com.orangeunilabs.glowbot.FrameContext;
 import com.orangeunilabs.glowbot.GlowbotControllable;
 
 /**
- * All patterns to be used with {}
+ * All patterns to be used with {@link com.orangeunilabs.glowbot.PatternSection#setCurrentPattern(LEDPattern)}
  */
 public interface LEDPattern {
-    void runPattern(GlowbotControllable section, boolean isFirstRun);
+    /**
+     * Returned by {@link #getNextRunTime(FrameContext)} when a pattern's output never changes after it has been drawn
+     */
+    double NEVER = Double.POSITIVE_INFINITY;
+
+    /**
+     * Draw the pattern onto a section. Patterns should animate using the time in {@code frame} rather than by
+     * counting calls, so they look the same no matter how often they are updated.
+     *
+     * @param section    the LEDs to draw on
+     * @param frame      the timing of the frame being rendered
+     * @param isFirstRun whether this is the first time the pattern is drawn on this section
+     */
+    void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun);
+
+    /**
+     * Called right after {@link #runPattern(GlowbotControllable, FrameContext, boolean)} to find out when the
+     * pattern's output will next change. The section will not run the pattern again until then, so static or slowly
+     * changing patterns cost nothing in between. <br>
+     * By default, patterns run every time the section is updated.
+     *
+     * @param frame the timing of the run that just happened
+     * @return the FPGA timestamp at or after which the pattern needs to run again; the frame's timestamp to run every
+     * update, or {@link #NEVER} if the pattern is static
+     */
+    default double getNextRunTime(FrameContext frame) {
+        return frame.getTimestamp();
+    }
 }
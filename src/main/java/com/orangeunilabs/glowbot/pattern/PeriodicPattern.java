@@ -0,0 +1,22 @@
+package com.orangeunilabs.glowbot.pattern;
+
+import com.orangeunilabs.glowbot.FrameContext;
+
+/**
+ * A pattern that cycles through a fixed number of distinct frames, so its output can be cached with
+ * {@link CachedPattern}. <br>
+ * Every time the pattern runs it must draw every LED of the section, and what it draws may only depend on the frame
+ * index and the section's length.
+ */
+public interface PeriodicPattern extends LEDPattern {
+    /**
+     * @return how many distinct frames the pattern has in one cycle
+     */
+    int getFrameCount();
+
+    /**
+     * @param frame the timing of the frame being rendered
+     * @return which of the pattern's frames [0, {@link #getFrameCount()}) it draws at this time
+     */
+    int getFrameIndex(FrameContext frame);
+}
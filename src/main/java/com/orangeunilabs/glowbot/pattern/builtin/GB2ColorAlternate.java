@@ -1,19 +1,19 @@
 package com.orangeunilabs.glowbot.pattern.builtin;
 
+import com.orangeunilabs.glowbot.FrameContext;
 import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.LEDUtils;
 import com.orangeunilabs.glowbot.pattern.LEDPattern;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.util.Color;
 
 /**
  * A pattern to alternate while displaying two colors at a time
  */
 public class GB2ColorAlternate implements LEDPattern {
-    Color c1, c2;
+    int c1, c2;
     int len = -1;
     double duration, lastChange = 0;
     boolean flip = false;
-    Timer flipTimer;
 
     /**
      *
@@ -23,11 +23,10 @@ public class GB2ColorAlternate implements LEDPattern {
      * @param durationSeconds
      */
     public GB2ColorAlternate(Color color1, Color color2, int length, double durationSeconds) {
-        c1 = color1;
-        c2 = color2;
+        c1 = LEDUtils.pack(color1);
+        c2 = LEDUtils.pack(color2);
         len = length;
         duration = durationSeconds;
-        flipTimer = new Timer();
     }
 
     /**
@@ -37,16 +36,15 @@ public class GB2ColorAlternate implements LEDPattern {
      * @param durationSeconds
      */
     public GB2ColorAlternate(Color color1, Color color2, double durationSeconds) {
-        c1 = color1;
-        c2 = color2;
+        c1 = LEDUtils.pack(color1);
+        c2 = LEDUtils.pack(color2);
         duration = durationSeconds;
-        flipTimer = new Timer();
     }
 
     @Override
-    public void runPattern(GlowbotControllable section, boolean isFirstRun) {
-        double timestamp = Timer.getFPGATimestamp();
-        if (timestamp - lastChange > duration) {
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        double timestamp = frame.getTimestamp();
+        if (timestamp - lastChange >= duration) {
             flip = !flip;
             lastChange = timestamp;
         }
@@ -57,16 +55,16 @@ public class GB2ColorAlternate implements LEDPattern {
         }
 
         if (flip) {
-            section.setRange(0, length - 1, c2);
-            section.setRange(0, section.getLength() - 1, c1);
+            section.fill(0, length - 1, c2);
+            section.fill(length, section.getLength() - 1, c1);
         } else {
-            section.setRange(0, length - 1, c1);
-            section.setRange(length, section.getLength() - 1, c2);
+            section.fill(0, length - 1, c1);
+            section.fill(length, section.getLength() - 1, c2);
         }
+    }
 
-
-        for (int i = 0; i < section.getLength(); i += length - 1) {
-
-        }
+    @Override
+    public double getNextRunTime(FrameContext frame) {
+        return lastChange + duration;
     }
 }
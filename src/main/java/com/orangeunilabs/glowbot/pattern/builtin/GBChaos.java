@@ -1,6 +1,8 @@
 package com.orangeunilabs.glowbot.pattern.builtin;
 
+import com.orangeunilabs.glowbot.FrameContext;
 import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.LEDRandom;
 import com.orangeunilabs.glowbot.LEDUtils;
 import com.orangeunilabs.glowbot.pattern.LEDPattern;
 
@@ -9,22 +11,40 @@ import com.orangeunilabs.glowbot.pattern.LEDPattern;
  * @author FRC team 5013, Trobots
  */
 public class GBChaos implements LEDPattern {
+    private final LEDRandom random;
+    private final boolean seeded;
+
     /**
-     *
+     * A storm that is different every time
      */
     public GBChaos() {
-        // Default Constructor
+        random = new LEDRandom();
+        seeded = false;
+    }
+
+    /**
+     * A storm that plays out exactly the same way every time the pattern starts
+     *
+     * @param seed storms with the same seed are the same
+     */
+    public GBChaos(long seed) {
+        random = new LEDRandom(seed);
+        seeded = true;
     }
 
     @Override
-    public void runPattern(GlowbotControllable section, boolean isFirstRun) {
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        int length = section.getLength();
         if (isFirstRun){
-            for (int index = 0; index < section.getLength(); index++) {
-                section.set(index, LEDUtils.randomColor());
+            if (seeded) {
+                random.reset();
+            }
+            for (int index = 0; index < length; index++) {
+                section.setRGB(index, LEDUtils.randomRGB(random));
             }
         }
-        for (int index = 0; index < section.getLength(); index++) {
-            section.set(index, LEDUtils.randomColorShift(section.get(index)));
+        for (int index = 0; index < length; index++) {
+            section.setRGB(index, LEDUtils.randomShift(section.getRGB(index), random));
         }
     }
 }
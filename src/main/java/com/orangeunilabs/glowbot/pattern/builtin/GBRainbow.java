@@ -1,27 +1,57 @@
 package com.orangeunilabs.glowbot.pattern.builtin;
 
+import com.orangeunilabs.glowbot.FrameContext;
 import com.orangeunilabs.glowbot.GlowbotControllable;
-import com.orangeunilabs.glowbot.pattern.LEDPattern;
-import edu.wpi.first.wpilibj.util.Color;
+import com.orangeunilabs.glowbot.LEDUtils;
+import com.orangeunilabs.glowbot.pattern.PeriodicPattern;
 
 /**
- * A simple rainbow pattern
+ * A simple rainbow pattern. It cycles through 180 frames, one per starting hue, so it can be wrapped in a
+ * {@link com.orangeunilabs.glowbot.pattern.CachedPattern}.
  * @author FRC team 5013, Trobots
  */
-public class GBRainbow implements LEDPattern {
-    private int firstHue = 0;
+public class GBRainbow implements PeriodicPattern {
+    /**
+     * The default speed, equal to the original 3 hue steps per update at 50Hz
+     */
+    public static final double DEFAULT_HUES_PER_SECOND = 150;
+    private final double huesPerSecond;
+
     public GBRainbow() {
-        // Default constructor
+        this(DEFAULT_HUES_PER_SECOND);
+    }
+
+    /**
+     * @param huesPerSecond how fast the rainbow moves along the strip, in WPILib hue units [0-180) per second
+     */
+    public GBRainbow(double huesPerSecond) {
+        this.huesPerSecond = huesPerSecond;
     }
 
     @Override
-    public void runPattern(GlowbotControllable section, boolean isFirstRun) {
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        int firstHue = getFrameIndex(frame);
         int currentHue;
         for (int index = 0; index < section.getLength(); index++){
             currentHue = (firstHue + (index * 180 / section.getLength())) % 180;
-            section.set(index, Color.fromHSV(currentHue, 255, 128));
+            section.setRGB(index, LEDUtils.hsvToRgb(currentHue, 255, 128));
         }
+    }
 
-        firstHue = (firstHue + 3) % 180;
+    @Override
+    public int getFrameCount() {
+        return 180;
+    }
+
+    /**
+     * @return the hue of the first LED
+     */
+    @Override
+    public int getFrameIndex(FrameContext frame) {
+        int firstHue = (int) ((frame.getTimestamp() * huesPerSecond) % 180);
+        if (firstHue < 0) {
+            firstHue += 180;
+        }
+        return firstHue;
     }
 }
@@ -1,6 +1,8 @@
 package com.orangeunilabs.glowbot.pattern.builtin;
 
+import com.orangeunilabs.glowbot.FrameContext;
 import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.LEDUtils;
 import com.orangeunilabs.glowbot.pattern.LEDPattern;
 import edu.wpi.first.wpilibj.util.Color;
 
@@ -8,13 +10,18 @@ import edu.wpi.first.wpilibj.util.Color;
  * Displays a solid color
  */
 public class GBSolid implements LEDPattern {
-    private Color solidColor;
+    private final int solidColor;
     public GBSolid(Color color) {
-        solidColor = color;
+        solidColor = LEDUtils.pack(color);
     }
 
     @Override
-    public void runPattern(GlowbotControllable section, boolean isFirstRun) {
-        section.setRange(0, section.getLength() - 1, solidColor);
+    public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+        section.fill(0, section.getLength() - 1, solidColor);
+    }
+
+    @Override
+    public double getNextRunTime(FrameContext frame) {
+        return NEVER;
     }
 }
@@ -0,0 +1,300 @@
+package com.orangeunilabs.glowbot.sim;
+
+import com.orangeunilabs.glowbot.FrameContext;
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.GlowbotException;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A log written by {@link FrameRecorder}, loaded into memory so it can be looked at without a robot. It can be
+ * rendered headless to a PNG (one row per frame, so the whole recording is visible at a glance) or an animated GIF,
+ * or replayed on a strip with {@link #toPattern(boolean)}.
+ */
+public final class FrameLog {
+    @Getter
+    private final int length;
+    private final double[] timestamps;
+    private final int[][] frames;
+
+    private FrameLog(int length, double[] timestamps, int[][] frames) {
+        this.length = length;
+        this.timestamps = timestamps;
+        this.frames = frames;
+    }
+
+    /**
+     * @param file a log written by {@link FrameRecorder}
+     * @return the log
+     * @throws GlowbotException if the file cannot be read or is not a log
+     */
+    public static FrameLog read(@NonNull File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(FrameLog): Could not read %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param in a log written by {@link FrameRecorder}. It is read to the end but not closed.
+     * @return the log. A log that was cut off part way through a frame ends at the last complete frame.
+     * @throws IOException if the stream cannot be read or is not a log
+     */
+    public static FrameLog read(@NonNull InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != FrameRecorder.MAGIC) {
+            throw new IOException("Not a Glowbot frame log");
+        }
+        int version = data.readUnsignedShort();
+        if (version != FrameRecorder.VERSION) {
+            throw new IOException(String.format("Unsupported frame log version %s", version));
+        }
+        int length = data.readUnsignedShort();
+
+        ArrayList<int[]> frames = new ArrayList<>();
+        double[] timestamps = new double[64];
+        int[] current = new int[length];
+        byte[] rgbBytes = new byte[length * 3];
+        try {
+            while (true) {
+                double timestamp = data.readDouble();
+                int start = data.readUnsignedShort();
+                int count = data.readUnsignedShort();
+                if (start + count > length) {
+                    throw new IOException(String.format("Frame %s changes LEDs past the end of the strip", frames.size()));
+                }
+                data.readFully(rgbBytes, 0, count * 3);
+
+                for (int idx = 0; idx < count; idx++) {
+                    current[start + idx] = (rgbBytes[idx * 3] & 0xFF) << 16
+                            | (rgbBytes[idx * 3 + 1] & 0xFF) << 8
+                            | (rgbBytes[idx * 3 + 2] & 0xFF);
+                }
+                if (frames.size() == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, timestamps.length * 2);
+                }
+                timestamps[frames.size()] = timestamp;
+                frames.add(current.clone());
+            }
+        } catch (EOFException e) {
+            // The end of the log
+        }
+
+        return new FrameLog(length, Arrays.copyOf(timestamps, frames.size()), frames.toArray(new int[0][]));
+    }
+
+    /**
+     * @return the number of frames in the log
+     */
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * @return the time the frame was pushed, in seconds
+     */
+    public double getTimestamp(int frame) {
+        return timestamps[frame];
+    }
+
+    /**
+     * @return the color of an LED in a frame, packed as {@code 0xRRGGBB}
+     */
+    public int getRGB(int frame, int index) {
+        return frames[frame][index];
+    }
+
+    /**
+     * @return a copy of a frame, packed as {@code 0xRRGGBB}
+     */
+    public int[] getFrame(int frame) {
+        return frames[frame].clone();
+    }
+
+    /**
+     * @return the frame that was showing at a time: the last one pushed at or before it, or -1 if it is before the
+     * first frame
+     */
+    public int frameAt(double timestamp) {
+        int position = Arrays.binarySearch(timestamps, timestamp);
+        if (position >= 0) {
+            // Frames can share a timestamp, so take the last one
+            while (position + 1 < timestamps.length && timestamps[position + 1] == timestamp) {
+                position++;
+            }
+            return position;
+        }
+        return -position - 2;
+    }
+
+    /**
+     * Render the log as an image with one row of LEDs per frame, top to bottom
+     *
+     * @param file      the PNG file to write
+     * @param pixelSize how many image pixels wide and tall each LED is
+     * @throws GlowbotException if the file cannot be written
+     */
+    public void renderPng(@NonNull File file, int pixelSize) {
+        BufferedImage image = new BufferedImage(length * pixelSize, Math.max(frames.length, 1) * pixelSize,
+                BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[length * pixelSize];
+        for (int frame = 0; frame < frames.length; frame++) {
+            scaleRow(frames[frame], row, pixelSize);
+            for (int y = 0; y < pixelSize; y++) {
+                image.setRGB(0, frame * pixelSize + y, row.length, 1, row, 0, row.length);
+            }
+        }
+
+        try {
+            ImageIO.write(image, "png", file);
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(FrameLog): Could not write %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Render the log as a looping animation of the strip, with each frame shown for as long as it was on the LEDs
+     *
+     * @param file      the GIF file to write
+     * @param pixelSize how many image pixels wide and tall each LED is
+     * @throws GlowbotException if the file cannot be written
+     */
+    public void renderGif(@NonNull File file, int pixelSize) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        BufferedImage image = new BufferedImage(length * pixelSize, pixelSize, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[length * pixelSize];
+
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            for (int frame = 0; frame < frames.length; frame++) {
+                scaleRow(frames[frame], row, pixelSize);
+                for (int y = 0; y < pixelSize; y++) {
+                    image.setRGB(0, y, row.length, 1, row, 0, row.length);
+                }
+                // GIF delays are in hundredths of a second, and most viewers ignore anything under 2
+                double seconds = frame + 1 < frames.length ? timestamps[frame + 1] - timestamps[frame] : 1;
+                int delay = Math.max((int) Math.round(seconds * 100), 2);
+                writer.writeToSequence(new IIOImage(image, null, gifMetadata(writer, image, delay, frame == 0)), null);
+            }
+            writer.endWriteSequence();
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(FrameLog): Could not write %s: %s", file, e.getMessage()));
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Play the log back on a section, starting when the pattern first runs. LEDs past the end of the log's strip are
+     * left alone.
+     *
+     * @param loop whether to start over after the last frame. Otherwise, the last frame stays on the LEDs.
+     * @return the pattern. Like other patterns, it keeps state, so each section needs its own.
+     */
+    public LEDPattern toPattern(boolean loop) {
+        return new LEDPattern() {
+            private double startTimestamp;
+            private int shownFrame;
+            private double nextRunTime;
+
+            @Override
+            public void runPattern(GlowbotControllable section, FrameContext frame, boolean isFirstRun) {
+                if (isFirstRun) {
+                    startTimestamp = frame.getTimestamp();
+                    shownFrame = -1;
+                }
+                nextRunTime = NEVER;
+                if (frames.length == 0) {
+                    return;
+                }
+
+                double first = timestamps[0];
+                double duration = timestamps[timestamps.length - 1] - first;
+                double t = frame.getTimestamp() - startTimestamp;
+                if (loop && duration > 0) {
+                    t %= duration;
+                }
+                int position = Math.max(frameAt(first + t), 0);
+                if (position != shownFrame) {
+                    section.setRGB(0, frames[position], 0, Math.min(length, section.getLength()));
+                    shownFrame = position;
+                }
+
+                if (position + 1 < frames.length) {
+                    nextRunTime = frame.getTimestamp() + (timestamps[position + 1] - first - t);
+                } else if (loop && duration > 0) {
+                    nextRunTime = frame.getTimestamp() + (duration - t);
+                }
+            }
+
+            @Override
+            public double getNextRunTime(FrameContext frame) {
+                return nextRunTime;
+            }
+        };
+    }
+
+    private void scaleRow(int[] frame, int[] row, int pixelSize) {
+        for (int idx = 0; idx < length; idx++) {
+            Arrays.fill(row, idx * pixelSize, (idx + 1) * pixelSize, frame[idx]);
+        }
+    }
+
+    private static IIOMetadata gifMetadata(ImageWriter writer, BufferedImage image, int delay, boolean first)
+            throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(delay));
+        control.setAttribute("transparentColorIndex", "0");
+
+        if (first) {
+            // Loop forever
+            IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+            extension.setAttribute("applicationID", "NETSCAPE");
+            extension.setAttribute("authenticationCode", "2.0");
+            extension.setUserObject(new byte[]{1, 0, 0});
+            child(root, "ApplicationExtensions").appendChild(extension);
+        }
+
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int idx = 0; idx < parent.getLength(); idx++) {
+            if (parent.item(idx).getNodeName().equals(name)) {
+                return (IIOMetadataNode) parent.item(idx);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+}
@@ -0,0 +1,227 @@
+package com.orangeunilabs.glowbot.sim;
+
+import com.orangeunilabs.glowbot.GlowbotException;
+import com.orangeunilabs.glowbot.GlowbotRio;
+import edu.wpi.first.wpilibj.DriverStation;
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every frame a {@link GlowbotRio} pushes, with its timestamp, to a compact binary log that can be rendered or
+ * replayed off the robot with {@link FrameLog}. Attach one with {@link GlowbotRio#setRecorder(FrameRecorder)}.
+ * Frames are recorded as they were sent to the output, so they show power limiting, gamma, white balance and
+ * dithering. When the {@link com.orangeunilabs.glowbot.ColorOrder} of the chips is not the order the output sends
+ * channels in, the channels are rearranged so they reach the chip in its order, rather than being red, green, blue.
+ * <br>
+ * Recording is cheap enough to leave on during matches: the updater copies each frame into a preallocated ring buffer
+ * and never waits, and a background thread writes the buffer out. If the writer falls a whole ring behind, frames are
+ * dropped (see {@link #getDroppedFrameCount()}) rather than slowing the updater down.
+ * <p>
+ * The log starts with {@link #MAGIC}, a version and the strip length. Each frame is its timestamp, then the run of
+ * LEDs that changed since the previous frame: a start index and count, followed by 3 bytes (red, green, blue) per LED.
+ */
+public final class FrameRecorder implements AutoCloseable {
+    /**
+     * "GBRC", the first 4 bytes of every log
+     */
+    public static final int MAGIC = 0x47425243;
+    static final int VERSION = 1;
+    /**
+     * How many frames the ring buffer holds by default; about 5 seconds at 50Hz
+     */
+    public static final int DEFAULT_CAPACITY_FRAMES = 256;
+    /**
+     * How often the background thread writes out the ring buffer
+     */
+    private static final long DRAIN_PERIOD_NANOS = 20_000_000;
+
+    private final int length;
+    private final int[][] slots;
+    private final double[] timestamps;
+    /**
+     * The number of frames recorded and written. The updater only advances head and the background thread only
+     * advances tail, so the ring buffer needs no locks.
+     */
+    private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+    private final AtomicLong droppedFrameCount = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /* Only touched by the background thread */
+    private final DataOutputStream out;
+    private final int[] lastWritten;
+    private final byte[] rgbBytes;
+    private boolean failed = false;
+    private final Thread drainThread;
+
+    /**
+     * Record to a file with the default capacity
+     *
+     * @param file   the file to write the log to. It is replaced if it exists.
+     * @param length the length of the strip being recorded
+     * @return the recorder
+     * @throws GlowbotException if the file cannot be opened
+     */
+    public static FrameRecorder toFile(@NonNull File file, int length) {
+        try {
+            return new FrameRecorder(new FileOutputStream(file), length, DEFAULT_CAPACITY_FRAMES);
+        } catch (IOException e) {
+            throw new GlowbotException(String.format("Glowbot(FrameRecorder): Could not open %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param out            where to write the log. It is closed when the recorder is.
+     * @param length         the length of the strip being recorded
+     * @param capacityFrames how many frames can wait to be written before frames are dropped
+     * @throws IOException if the header cannot be written
+     */
+    public FrameRecorder(@NonNull OutputStream out, int length, int capacityFrames) throws IOException {
+        if (length < 1 || length > 0xFFFF || capacityFrames < 1) {
+            throw new GlowbotException(String.format("Glowbot(FrameRecorder): Invalid length %s or capacity %s",
+                    length, capacityFrames));
+        }
+
+        this.length = length;
+        slots = new int[capacityFrames][length];
+        timestamps = new double[capacityFrames];
+        lastWritten = new int[length];
+        rgbBytes = new byte[length * 3];
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+        this.out.writeShort(length);
+
+        drainThread = new Thread(this::drain, "Glowbot FrameRecorder");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    /**
+     * Add a frame to the log. This only copies the frame, so it is safe to call from the updater. Only one thread may
+     * record at a time.
+     *
+     * @param timestamp the time the frame was pushed, in seconds
+     * @param frame     the colors of the LEDs packed as {@code 0xRRGGBB}. Only the first {@code length} are recorded.
+     */
+    public void record(double timestamp, int[] frame) {
+        if (closed) {
+            return;
+        }
+
+        long position = head.get();
+        if (position - tail.get() >= slots.length) {
+            droppedFrameCount.incrementAndGet();
+            return;
+        }
+        int slot = (int) (position % slots.length);
+        System.arraycopy(frame, 0, slots[slot], 0, length);
+        timestamps[slot] = timestamp;
+        // Publishes the slot to the background thread
+        head.lazySet(position + 1);
+    }
+
+    /**
+     * @return the number of frames recorded so far, including ones that have not been written yet
+     */
+    public long getRecordedFrameCount() {
+        return head.get();
+    }
+
+    /**
+     * @return the number of frames that were dropped because the background thread fell behind
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount.get();
+    }
+
+    /**
+     * Write out the frames that are still waiting and close the log
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            // Read before draining, so nothing recorded before close() is missed
+            boolean stopping = closed;
+            long position = tail.get();
+            for (long end = head.get(); position < end; position++) {
+                int slot = (int) (position % slots.length);
+                writeFrame(timestamps[slot], slots[slot]);
+                tail.lazySet(position + 1);
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(DRAIN_PERIOD_NANOS);
+        }
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeFrame(double timestamp, int[] frame) {
+        if (failed) {
+            return;
+        }
+
+        // Only the run of LEDs that changed is written. A frame with no changes still records its timestamp.
+        int start = Arrays.mismatch(lastWritten, frame);
+        int end = -1;
+        if (start < 0) {
+            start = 0;
+        } else {
+            end = length - 1;
+            while (frame[end] == lastWritten[end]) {
+                end--;
+            }
+        }
+
+        int count = end - start + 1;
+        for (int idx = 0; idx < count; idx++) {
+            int rgb = frame[start + idx];
+            rgbBytes[idx * 3] = (byte) (rgb >> 16);
+            rgbBytes[idx * 3 + 1] = (byte) (rgb >> 8);
+            rgbBytes[idx * 3 + 2] = (byte) rgb;
+        }
+        System.arraycopy(frame, start, lastWritten, start, count);
+
+        try {
+            out.writeDouble(timestamp);
+            out.writeShort(start);
+            out.writeShort(count);
+            out.write(rgbBytes, 0, count * 3);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        DriverStation.reportError(String.format("Glowbot(FrameRecorder): Recording stopped: %s", e.getMessage()), false);
+    }
+}
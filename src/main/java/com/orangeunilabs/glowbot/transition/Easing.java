@@ -0,0 +1,41 @@
+package com.orangeunilabs.glowbot.transition;
+
+/**
+ * How a {@link Transition}'s progress speeds up and slows down over its duration
+ */
+public enum Easing {
+    /** Constant speed */
+    Linear {
+        @Override
+        public double apply(double t) {
+            return t;
+        }
+    },
+    /** Starts slowly and speeds up */
+    EaseIn {
+        @Override
+        public double apply(double t) {
+            return t * t;
+        }
+    },
+    /** Starts quickly and slows down */
+    EaseOut {
+        @Override
+        public double apply(double t) {
+            return t * (2 - t);
+        }
+    },
+    /** Starts and ends slowly */
+    EaseInOut {
+        @Override
+        public double apply(double t) {
+            return t * t * (3 - 2 * t);
+        }
+    };
+
+    /**
+     * @param t how much of the transition's duration has passed [0-1]
+     * @return how far along the transition is [0-1]
+     */
+    public abstract double apply(double t);
+}
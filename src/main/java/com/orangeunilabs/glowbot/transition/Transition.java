@@ -0,0 +1,57 @@
+package com.orangeunilabs.glowbot.transition;
+
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.PatternSection;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Changes a section from one pattern to another over time, instead of switching instantly. Pass one to
+ * {@link PatternSection#setCurrentPattern(LEDPattern, Transition)}. <br>
+ * While a transition runs, the outgoing and incoming patterns both keep animating into their own frames, and every
+ * update the transition combines the two onto the section. The same Transition can be used on any number of sections
+ * at once, so implementations must not keep per-section state.
+ */
+public abstract class Transition {
+    /**
+     * How long the transition takes, in seconds
+     */
+    @Getter
+    private final double duration;
+    @Getter
+    private final Easing easing;
+
+    /**
+     * @param durationSeconds how long the transition takes, in seconds
+     * @param easing          how the progress speeds up and slows down
+     */
+    protected Transition(double durationSeconds, @NonNull Easing easing) {
+        duration = durationSeconds;
+        this.easing = easing;
+    }
+
+    /**
+     * @param elapsedSeconds how long ago the transition started, in seconds
+     * @return how far along the transition is [0-255], with easing applied. 255 means that it is done.
+     */
+    public int getProgress(double elapsedSeconds) {
+        if (elapsedSeconds >= duration) {
+            return 255;
+        }
+        return (int) (easing.apply(Math.max(elapsedSeconds, 0) / duration) * 255);
+    }
+
+    /**
+     * Combine the outgoing and incoming frames onto the section. This is called every update while the transition
+     * runs, so it should not allocate.
+     *
+     * @param from     the outgoing pattern's frame, one packed {@code 0xRRGGBB} color per LED of the section
+     * @param to       the incoming pattern's frame
+     * @param scratch  a frame the size of the section that belongs to the section, to build the result in before
+     *                 handing it over, since the transition itself cannot keep one
+     * @param section  the section to draw on
+     * @param progress how far along the transition is [0-255], where 0 shows only {@code from} and 255 only {@code to}
+     */
+    public abstract void apply(int[] from, int[] to, int[] scratch, GlowbotControllable section, int progress);
+}
@@ -0,0 +1,34 @@
+package com.orangeunilabs.glowbot.transition.builtin;
+
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.FrameOps;
+import com.orangeunilabs.glowbot.transition.Easing;
+import com.orangeunilabs.glowbot.transition.Transition;
+
+/**
+ * Fades every LED from the outgoing pattern to the incoming one at the same time
+ */
+public class GBCrossFade extends Transition {
+    /**
+     * @param durationSeconds how long the fade takes
+     */
+    public GBCrossFade(double durationSeconds) {
+        this(durationSeconds, Easing.Linear);
+    }
+
+    /**
+     * @param durationSeconds how long the fade takes
+     * @param easing          how the fade speeds up and slows down
+     */
+    public GBCrossFade(double durationSeconds, Easing easing) {
+        super(durationSeconds, easing);
+    }
+
+    @Override
+    public void apply(int[] from, int[] to, int[] scratch, GlowbotControllable section, int progress) {
+        // Blended into the section's scratch frame, so it is handed to the section in one copy
+        int length = section.getLength();
+        FrameOps.lerp(from, to, scratch, 0, length - 1, progress);
+        section.setRGB(0, scratch, 0, length);
+    }
+}
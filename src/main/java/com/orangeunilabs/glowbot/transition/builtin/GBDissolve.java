@@ -0,0 +1,40 @@
+package com.orangeunilabs.glowbot.transition.builtin;
+
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.transition.Easing;
+import com.orangeunilabs.glowbot.transition.Transition;
+
+/**
+ * Switches LEDs from the outgoing pattern to the incoming one one at a time, in a scattered order
+ */
+public class GBDissolve extends Transition {
+    /**
+     * @param durationSeconds how long the dissolve takes
+     */
+    public GBDissolve(double durationSeconds) {
+        this(durationSeconds, Easing.Linear);
+    }
+
+    /**
+     * @param durationSeconds how long the dissolve takes
+     * @param easing          how the dissolve speeds up and slows down
+     */
+    public GBDissolve(double durationSeconds, Easing easing) {
+        super(durationSeconds, easing);
+    }
+
+    @Override
+    public void apply(int[] from, int[] to, int[] scratch, GlowbotControllable section, int progress) {
+        for (int idx = 0; idx < section.getLength(); idx++) {
+            section.setRGB(idx, progress > threshold(idx) ? to[idx] : from[idx]);
+        }
+    }
+
+    /**
+     * The progress [0-254] at which an LED switches. A hash of the index rather than a random number, so the order
+     * is the same every frame without storing it.
+     */
+    private static int threshold(int idx) {
+        return ((idx * 0x9E3779B1) >>> 24) % 255;
+    }
+}
@@ -0,0 +1,41 @@
+package com.orangeunilabs.glowbot.transition.builtin;
+
+import com.orangeunilabs.glowbot.GlowbotControllable;
+import com.orangeunilabs.glowbot.transition.Easing;
+import com.orangeunilabs.glowbot.transition.Transition;
+
+/**
+ * Sweeps the incoming pattern along the section, replacing the outgoing one
+ */
+public class GBWipe extends Transition {
+    private final boolean reverse;
+
+    /**
+     * @param durationSeconds how long the wipe takes
+     */
+    public GBWipe(double durationSeconds) {
+        this(durationSeconds, Easing.Linear, false);
+    }
+
+    /**
+     * @param durationSeconds how long the wipe takes
+     * @param easing          how the wipe speeds up and slows down
+     * @param reverse         wipe from the last LED of the section towards the first, instead of from the first
+     */
+    public GBWipe(double durationSeconds, Easing easing, boolean reverse) {
+        super(durationSeconds, easing);
+        this.reverse = reverse;
+    }
+
+    @Override
+    public void apply(int[] from, int[] to, int[] scratch, GlowbotControllable section, int progress) {
+        int length = section.getLength();
+        // How many LEDs the incoming pattern has reached
+        int covered = (progress * length + 127) / 255;
+
+        for (int idx = 0; idx < length; idx++) {
+            int position = reverse ? length - 1 - idx : idx;
+            section.setRGB(idx, position < covered ? to[idx] : from[idx]);
+        }
+    }
+}
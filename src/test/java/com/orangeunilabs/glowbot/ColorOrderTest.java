@@ -0,0 +1,53 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Channels are rearranged from the order an output sends them in to the order the chips expect
+ */
+class ColorOrderTest {
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void sameOrderIsUnchanged() {
+        for (ColorOrder order : ColorOrder.values()) {
+            assertEquals(16, order.shiftOf('R', order));
+            assertEquals(8, order.shiftOf('G', order));
+            assertEquals(0, order.shiftOf('B', order));
+        }
+    }
+
+    @Test
+    void shiftsFollowWireOrder() {
+        // Sent green first, a GRB chip's red is the second channel on the wire
+        assertEquals(16, ColorOrder.GRB.shiftOf('R', ColorOrder.GRB));
+        // Sent red first, the chip reads the first channel as green, so red has to go second
+        assertEquals(8, ColorOrder.GRB.shiftOf('R', ColorOrder.RGB));
+        assertEquals(16, ColorOrder.GRB.shiftOf('G', ColorOrder.RGB));
+        assertEquals(0, ColorOrder.GRB.shiftOf('B', ColorOrder.RGB));
+        // A BGR chip on an RGB wire gets its blue where red is sent
+        assertEquals(16, ColorOrder.BGR.shiftOf('B', ColorOrder.RGB));
+        assertEquals(0, ColorOrder.BGR.shiftOf('R', ColorOrder.RGB));
+    }
+
+    @Test
+    void framesAreCorrectedForTheOutput() {
+        GlowbotRioConfig config = new GlowbotRioConfig(0, 4);
+        config.setColorOrder(ColorOrder.RGB);
+        MemoryOutput output = new MemoryOutput();
+        try (GlowbotRio glowbot = new GlowbotRio(config, output)) {
+            glowbot.getSection(0, 3).setRGB(0, 0x112233);
+            glowbot.periodic();
+            // The output sends green first, so red and green trade places for an RGB chip
+            assertEquals(0x221133, output.getRGB(0));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.orangeunilabs.glowbot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Every {@link FrameKernels} gives exactly what {@link LEDUtils} gives pixel by pixel, for runs of any length that
+ * start anywhere, including the tails that do not fill a whole vector
+ */
+class FrameOpsTest {
+    private static final int FRAME_LENGTH = 80;
+    private static final int[] LEVELS = {0, 1, 2, 64, 127, 128, 129, 200, 254, 255};
+
+    @Test
+    void scaleMatchesLEDUtils() throws ReflectiveOperationException {
+        Random random = new Random(1);
+        for (FrameKernels kernels : kernels()) {
+            for (int brightness : LEVELS) {
+                forEachRange((start, end) -> {
+                    int[] src = frame(random), dst = frame(random), expected = dst.clone();
+                    for (int idx = start; idx <= end; idx++) {
+                        expected[idx] = LEDUtils.scale(src[idx], brightness);
+                    }
+                    kernels.scale(src, dst, start, end, brightness);
+                    check(kernels, "scale", expected, dst, start, end);
+                });
+            }
+        }
+    }
+
+    @Test
+    void addMatchesLEDUtils() throws ReflectiveOperationException {
+        Random random = new Random(2);
+        for (FrameKernels kernels : kernels()) {
+            forEachRange((start, end) -> {
+                int[] a = frame(random), b = frame(random), dst = frame(random), expected = dst.clone();
+                for (int idx = start; idx <= end; idx++) {
+                    expected[idx] = LEDUtils.add(a[idx], b[idx]);
+                }
+                kernels.add(a, b, dst, start, end);
+                check(kernels, "add", expected, dst, start, end);
+            });
+        }
+    }
+
+    @Test
+    void lerpMatchesLEDUtils() throws ReflectiveOperationException {
+        Random random = new Random(3);
+        for (FrameKernels kernels : kernels()) {
+            for (int amount : LEVELS) {
+                forEachRange((start, end) -> {
+                    int[] from = frame(random), to = frame(random), dst = frame(random), expected = dst.clone();
+                    for (int idx = start; idx <= end; idx++) {
+                        expected[idx] = LEDUtils.blend(from[idx], to[idx], amount);
+                    }
+                    kernels.lerp(from, to, dst, start, end, amount);
+                    check(kernels, "lerp", expected, dst, start, end);
+                });
+            }
+        }
+    }
+
+    @Test
+    void kernelsWorkInPlace() throws ReflectiveOperationException {
+        Random random = new Random(4);
+        for (FrameKernels kernels : kernels()) {
+            int[] frame = frame(random), other = frame(random), expected = frame.clone();
+            for (int idx = 3; idx <= 70; idx++) {
+                expected[idx] = LEDUtils.blend(LEDUtils.scale(frame[idx], 77), other[idx], 150);
+            }
+            kernels.scale(frame, frame, 3, 70, 77);
+            kernels.lerp(frame, other, frame, 3, 70, 150);
+            check(kernels, "scale then lerp", expected, frame, 3, 70);
+        }
+    }
+
+    /**
+     * @return the scalar kernels, and the vector ones if this JVM has the Vector API
+     */
+    private static List<FrameKernels> kernels() throws ReflectiveOperationException {
+        List<FrameKernels> kernels = new ArrayList<>();
+        kernels.add(new ScalarFrameKernels());
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            // Loaded by name like FrameOps does, since it is only on the test runtime classpath
+            kernels.add((FrameKernels) Class.forName("com.orangeunilabs.glowbot.VectorFrameKernels")
+                    .getDeclaredConstructor().newInstance());
+        }
+        assertTrue(kernels.size() > 1 || !FrameOps.isVectorized());
+        return kernels;
+    }
+
+    private interface RangeCheck {
+        void run(int start, int end);
+    }
+
+    /**
+     * Every run that starts in the first few LEDs, so that runs start at every offset within a vector, and every
+     * length up to a few vectors, so that every length of tail is covered. Empty runs are included.
+     */
+    private static void forEachRange(RangeCheck check) {
+        for (int start = 0; start < 9; start++) {
+            for (int end = start - 1; end < FRAME_LENGTH; end++) {
+                check.run(start, end);
+            }
+        }
+    }
+
+    private static int[] frame(Random random) {
+        int[] frame = new int[FRAME_LENGTH];
+        for (int idx = 0; idx < frame.length; idx++) {
+            frame[idx] = random.nextInt(0x1000000);
+        }
+        return frame;
+    }
+
+    private static void check(FrameKernels kernels, String operation, int[] expected, int[] actual, int start,
+                              int end) {
+        for (int idx = 0; idx < expected.length; idx++) {
+            if (actual[idx] != expected[idx]) {
+                fail(String.format("%s %s [%d, %d] gave %06X at %d, expected %06X", kernels.getClass().getSimpleName(),
+                        operation, start, end, actual[idx], idx, expected[idx]));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Only the color bits of what is drawn on a {@link LEDMatrix} reach the LEDs
+ */
+class LEDMatrixTest {
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void drawingMasksColors() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 16), new MemoryOutput())) {
+            PatternSection section = glowbot.getSection(0, 15);
+            LEDMatrix matrix = new LEDMatrix(section, MatrixLayout.serpentine(4, 4));
+
+            matrix.setXY(0, 0, 0xFF123456);
+            assertEquals(0x123456, matrix.getXY(0, 0));
+            assertEquals(0x123456, section.getRGB(0));
+
+            matrix.fillRect(0, 1, 4, 1, 0x80ABCDEF);
+            assertEquals(0xABCDEF, matrix.getXY(3, 1));
+
+            matrix.blit(new int[]{0xFF000001, 0x01000002, 0xFF000003, 0x7F000004}, 2, 2, 2);
+            assertEquals(0x000001, matrix.getXY(2, 2));
+            assertEquals(0x000004, matrix.getXY(3, 3));
+            assertEquals(0x000004, section.getRGB(12));
+        }
+    }
+
+    @Test
+    void blitRejectsBadWidth() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 16), new MemoryOutput())) {
+            LEDMatrix matrix = new LEDMatrix(glowbot.getSection(0, 15), MatrixLayout.serpentine(4, 4));
+            assertThrows(GlowbotException.class, () -> matrix.blit(new int[4], 0, 0, 0));
+            assertThrows(GlowbotException.class, () -> matrix.blit(new int[4], -2, 0, 0));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.pattern.builtin.GBChaos;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LEDRandomTest {
+    @Test
+    void sameSeedSameSequence() {
+        LEDRandom first = new LEDRandom(5013), second = new LEDRandom(5013);
+        long[] sequence = new long[1000];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = first.nextLong();
+            assertEquals(sequence[i], second.nextLong());
+        }
+
+        first.reset();
+        for (long expected : sequence) {
+            assertEquals(expected, first.nextLong());
+        }
+    }
+
+    @Test
+    void boundedValuesStayInRange() {
+        LEDRandom random = new LEDRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(180);
+            assertTrue(value >= 0 && value < 180, "nextInt(180) gave " + value);
+            int shift = random.nextShift(LEDUtils.RANDOM_SHIFT_MAX);
+            assertTrue(Math.abs(shift) <= LEDUtils.RANDOM_SHIFT_MAX, "nextShift gave " + shift);
+        }
+    }
+
+    @Test
+    void seededChaosReplays() {
+        int[][] first = runChaos(new GBChaos(42));
+        assertArrayEquals(first[first.length - 1], runChaos(new GBChaos(42))[first.length - 1]);
+
+        // The same instance starts over when it is restarted
+        GBChaos chaos = new GBChaos(42);
+        runChaos(chaos);
+        int[][] replay = runChaos(chaos);
+        for (int frame = 0; frame < first.length; frame++) {
+            assertArrayEquals(first[frame], replay[frame], "frame " + frame);
+        }
+
+        int[][] other = runChaos(new GBChaos(43));
+        assertFalse(Arrays.equals(first[0], other[0]), "different seeds gave the same storm");
+    }
+
+    /**
+     * @return every frame of 50 frames of the pattern on a 60 LED section
+     */
+    private static int[][] runChaos(GBChaos chaos) {
+        GlowbotLEDBuffer buffer = new GlowbotLEDBuffer(60);
+        PatternSection section = new PatternSection(buffer, 0, 59, null);
+        FrameContext frame = new FrameContext();
+        int[][] frames = new int[50][];
+        for (int idx = 0; idx < frames.length; idx++) {
+            frame.advance(idx * 0.02);
+            chaos.runPattern(section, frame, idx == 0);
+            frames[idx] = buffer.pixels.clone();
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,106 @@
+package com.orangeunilabs.glowbot;
+
+import edu.wpi.first.wpilibj.util.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Exhaustive checks of the integer-only color math against WPILib and exact rational arithmetic. Every possible input
+ * is tried, so these take a few seconds.
+ */
+class LEDUtilsTest {
+    @Test
+    void hsvToRgbMatchesWPILib() {
+        for (int h = 0; h < 180; h++) {
+            for (int s = 0; s < 256; s++) {
+                for (int v = 0; v < 256; v++) {
+                    int expected = LEDUtils.pack(Color.fromHSV(h, s, v));
+                    int actual = LEDUtils.hsvToRgb(h, s, v);
+                    if (actual != expected) {
+                        fail(String.format("hsvToRgb(%d, %d, %d) was %06X, but Color.fromHSV gives %06X",
+                                h, s, v, actual, expected));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rgbToHsvRoundsExactly() {
+        for (int rgb = 0; rgb <= 0xFFFFFF; rgb++) {
+            int r = LEDUtils.red(rgb), g = LEDUtils.green(rgb), b = LEDUtils.blue(rgb);
+            int[] expected = exactRgbToHsv(r, g, b);
+            int[] actual = LEDUtils.rgbToHsv(r, g, b);
+            if (actual[0] != expected[0] || actual[1] != expected[1] || actual[2] != expected[2]) {
+                fail(String.format("rgbToHsv(%d, %d, %d) was [%d, %d, %d], expected [%d, %d, %d]", r, g, b,
+                        actual[0], actual[1], actual[2], expected[0], expected[1], expected[2]));
+            }
+        }
+    }
+
+    @Test
+    void rgbToHsvRoundTrips() {
+        for (int rgb = 0; rgb <= 0xFFFFFF; rgb++) {
+            int[] hsv = LEDUtils.rgbToHsv(LEDUtils.red(rgb), LEDUtils.green(rgb), LEDUtils.blue(rgb));
+            int back = LEDUtils.hsvToRgb(hsv[0], hsv[1], hsv[2]);
+
+            // Value is kept exactly. Hue only has 2 degree steps, which moves a channel by at most 255 * 2 / 60.
+            int error = Math.max(Math.abs(LEDUtils.red(rgb) - LEDUtils.red(back)),
+                    Math.max(Math.abs(LEDUtils.green(rgb) - LEDUtils.green(back)),
+                            Math.abs(LEDUtils.blue(rgb) - LEDUtils.blue(back))));
+            if (error > 8 || maxChannel(back) != maxChannel(rgb)) {
+                fail(String.format("%06X came back as %06X", rgb, back));
+            }
+        }
+    }
+
+    @Test
+    void saturatedHuesRoundTrip() {
+        for (int h = 0; h < 180; h++) {
+            int rgb = LEDUtils.hsvToRgb(h, 255, 255);
+            assertArrayEquals(new int[]{h, 255, 255},
+                    LEDUtils.rgbToHsv(LEDUtils.red(rgb), LEDUtils.green(rgb), LEDUtils.blue(rgb)), "hue " + h);
+        }
+    }
+
+    @Test
+    void packRoundsColors() {
+        for (int value = 0; value < 256; value++) {
+            assertEquals(LEDUtils.pack(value, value, value), LEDUtils.pack(new Color(value, value, value)));
+        }
+    }
+
+    /**
+     * The textbook conversion in floating point, rounding halves up. Every tie is exactly representable, and anything
+     * else is at least 1/510 away from one, so this is exact.
+     */
+    private static int[] exactRgbToHsv(int r, int g, int b) {
+        int cMax = Math.max(r, Math.max(g, b));
+        int delta = cMax - Math.min(r, Math.min(g, b));
+
+        int hue = 0;
+        if (delta != 0) {
+            double degrees;
+            if (cMax == r) {
+                degrees = 60.0 * (g - b) / delta;
+            } else if (cMax == g) {
+                degrees = 60.0 * (b - r) / delta + 120;
+            } else {
+                degrees = 60.0 * (r - g) / delta + 240;
+            }
+            hue = (int) Math.floor(degrees + 0.5);
+            if (hue < 0) {
+                hue += 360;
+            }
+        }
+        int saturation = cMax == 0 ? 0 : (int) Math.floor(delta * 255.0 / cMax + 0.5);
+        return new int[]{hue / 2, saturation, cMax};
+    }
+
+    private static int maxChannel(int rgb) {
+        return Math.max(LEDUtils.red(rgb), Math.max(LEDUtils.green(rgb), LEDUtils.blue(rgb)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.util.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Layers are composited over the strip's own sections, and hidden layers cost nothing
+ */
+class LayerTest {
+    private static final int LENGTH = 20;
+
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void hiddenLayerDoesNotRun() {
+        MemoryOutput output = new MemoryOutput();
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, LENGTH), output)) {
+            glowbot.getSection(0, LENGTH - 1).setCurrentPattern(new GBSolid(Color.kRed));
+            GlowbotLayer layer = glowbot.createLayer(1);
+            int[] runs = new int[1];
+            LEDPattern counting = (section, frame, isFirstRun) -> {
+                runs[0]++;
+                for (int idx = 0; idx < section.getLength(); idx++) {
+                    section.setRGB(idx, 0x0000FF);
+                }
+            };
+            layer.getSection(0, LENGTH - 1).setCurrentPattern(counting);
+
+            layer.setOpacity(0);
+            glowbot.periodic();
+            assertEquals(0, runs[0]);
+            assertEquals(0xFF0000, output.getRGB(0));
+
+            layer.setOpacity(255);
+            glowbot.periodic();
+            assertEquals(1, runs[0]);
+            assertEquals(0x0000FF, output.getRGB(0));
+        }
+    }
+
+    @Test
+    void replaceLayerCoversLayersBelow() {
+        MemoryOutput output = new MemoryOutput();
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, LENGTH), output)) {
+            glowbot.getSection(0, LENGTH - 1).setCurrentPattern(new GBSolid(Color.kRed));
+            GlowbotLayer middle = glowbot.createLayer(1);
+            middle.getSection(0, LENGTH - 1).setCurrentPattern(new GBSolid(Color.kGreen));
+            GlowbotLayer top = glowbot.createLayer(2);
+            top.setBlendMode(BlendMode.Replace);
+            top.setOpacity(128);
+            top.getSection(0, 9).setCurrentPattern(new GBSolid(Color.kWhite));
+            glowbot.periodic();
+            // Replace scales the layer instead of blending it, so nothing from below shows through
+            assertEquals(0x808080, output.getRGB(0));
+            // Past the top layer's sections, the layers below still show
+            assertEquals(0x008000, output.getRGB(LENGTH - 1));
+        }
+    }
+}
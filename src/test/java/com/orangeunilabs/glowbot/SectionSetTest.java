@@ -0,0 +1,54 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import edu.wpi.first.wpilibj.util.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Sections that are superseded are split without sharing a pattern between the parts
+ */
+class SectionSetTest {
+    @Test
+    void splitKeepsPatternInOnePart() {
+        SectionSet sections = new SectionSet(new GlowbotLEDBuffer(20, false), () -> {
+        });
+        GBSolid pattern = new GBSolid(Color.kRed);
+        sections.getSection(0, 19, false).setCurrentPattern(pattern);
+
+        sections.getSection(8, 11, true);
+        List<PatternSection> parts = sections.getSections();
+        assertEquals(3, parts.size());
+        assertSame(pattern, parts.get(0).getCurrentPattern());
+        assertNull(parts.get(1).getCurrentPattern());
+        assertNull(parts.get(2).getCurrentPattern());
+    }
+
+    @Test
+    void onlyRemainderKeepsPattern() {
+        SectionSet sections = new SectionSet(new GlowbotLEDBuffer(20, false), () -> {
+        });
+        GBSolid pattern = new GBSolid(Color.kRed);
+        sections.getSection(0, 19, false).setCurrentPattern(pattern);
+
+        // The part before the new section is too short to keep, so the part after it gets the pattern
+        sections.getSection(1, 10, true);
+        List<PatternSection> parts = sections.getSections();
+        assertEquals(2, parts.size());
+        assertSame(pattern, parts.get(1).getCurrentPattern());
+
+        // Two different sections that are both cut keep their own patterns
+        GBSolid other = new GBSolid(Color.kBlue);
+        parts.get(0).setCurrentPattern(other);
+        sections.getSection(5, 15, true);
+        parts = sections.getSections();
+        assertEquals(3, parts.size());
+        assertSame(other, parts.get(0).getCurrentPattern());
+        assertSame(pattern, parts.get(2).getCurrentPattern());
+    }
+}
@@ -0,0 +1,65 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import com.orangeunilabs.glowbot.pattern.LEDPattern;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A {@link Timeline} starts each segment's pattern over whenever it plays the segment again
+ */
+class TimelineTest {
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void loopingRestartsSingleSegment() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 10), new MemoryOutput())) {
+            PatternSection section = glowbot.getSection(0, 9);
+            int[] firstRuns = new int[1];
+            LEDPattern counting = (target, frame, isFirstRun) -> {
+                if (isFirstRun) {
+                    firstRuns[0]++;
+                }
+            };
+            Timeline timeline = new Timeline().add(counting, 1).setLooping(true);
+
+            FrameContext frame = new FrameContext();
+            double[] timestamps = {10, 10.5, 11.1, 11.6, 12.2, 12.4};
+            int[] expected = {1, 1, 2, 2, 3, 3};
+            for (int idx = 0; idx < timestamps.length; idx++) {
+                frame.advance(timestamps[idx]);
+                timeline.runPattern(section, frame, idx == 0);
+                assertEquals(expected[idx], firstRuns[0], "first runs at " + timestamps[idx]);
+            }
+        }
+    }
+
+    @Test
+    void repeatsRestartPattern() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 10), new MemoryOutput())) {
+            PatternSection section = glowbot.getSection(0, 9);
+            int[] firstRuns = new int[1];
+            LEDPattern counting = (target, frame, isFirstRun) -> {
+                if (isFirstRun) {
+                    firstRuns[0]++;
+                }
+            };
+            Timeline timeline = new Timeline().add(counting, 1, 2, null);
+
+            FrameContext frame = new FrameContext();
+            double[] timestamps = {0, 0.5, 1.5, 2.5, 3.5};
+            int[] expected = {1, 1, 2, 2, 2};
+            for (int idx = 0; idx < timestamps.length; idx++) {
+                frame.advance(timestamps[idx]);
+                timeline.runPattern(section, frame, idx == 0);
+                assertEquals(expected[idx], firstRuns[0], "first runs at " + timestamps[idx]);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.orangeunilabs.glowbot;
+
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The strip's own sections and its virtual strips never share LEDs
+ */
+class VirtualStripTest {
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void sectionsCannotCoverVirtualStrips() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 30), new MemoryOutput())) {
+            glowbot.createVirtualStrip("underglow", new StripMapping().addRun(10, 19));
+            assertThrows(GlowbotException.class, () -> glowbot.getSection(0, 10));
+            assertThrows(GlowbotException.class, () -> glowbot.getSection(15, 29, true));
+            glowbot.getSection(0, 9);
+            glowbot.getSection(20, 29);
+        }
+    }
+
+    @Test
+    void virtualStripsCannotCoverSections() {
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, 30), new MemoryOutput())) {
+            glowbot.getSection(0, 9);
+            assertThrows(GlowbotException.class,
+                    () -> glowbot.createVirtualStrip("underglow", new StripMapping().addLEDs(20, 9)));
+            glowbot.createVirtualStrip("underglow", new StripMapping().addRun(10, 19));
+        }
+    }
+}
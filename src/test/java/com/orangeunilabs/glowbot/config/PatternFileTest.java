@@ -0,0 +1,108 @@
+package com.orangeunilabs.glowbot.config;
+
+import com.orangeunilabs.glowbot.GlowbotRio;
+import com.orangeunilabs.glowbot.GlowbotRioConfig;
+import com.orangeunilabs.glowbot.output.MemoryOutput;
+import com.orangeunilabs.glowbot.pattern.builtin.GBSolid;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.util.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reloading a {@link PatternFile} changes what its sections run
+ */
+class PatternFileTest {
+    private static final int LENGTH = 20;
+    private static final String PATTERNS = "\"patterns\": {"
+            + "\"idle\": { \"type\": \"solid\", \"color\": \"#FF0000\" },"
+            + "\"hasNote\": { \"type\": \"solid\", \"color\": \"%s\" } }";
+
+    @BeforeAll
+    static void initializeHal() {
+        HAL.initialize(500, 0);
+    }
+
+    @Test
+    void reloadChangesSectionPattern() throws IOException {
+        File file = write(null, "#00FF00", "idle");
+        MemoryOutput output = new MemoryOutput();
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, LENGTH), output)) {
+            PatternFile patternFile = PatternFile.load(glowbot, file);
+            glowbot.periodic();
+            assertEquals(0xFF0000, output.getRGB(0));
+
+            // The file gives the section another pattern
+            write(file, "#00FF00", "hasNote");
+            assertTrue(patternFile.reload());
+            glowbot.periodic();
+            assertEquals(0x00FF00, output.getRGB(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void reloadFollowsPatternsFromGetPattern() throws IOException {
+        File file = write(null, "#00FF00", "idle");
+        MemoryOutput output = new MemoryOutput();
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, LENGTH), output)) {
+            PatternFile patternFile = PatternFile.load(glowbot, file);
+            patternFile.getSection("strip").setCurrentPattern(patternFile.getPattern("hasNote"));
+
+            // The section keeps running hasNote, in its new color, even though the file still gives it idle
+            write(file, "#0000FF", "idle");
+            assertTrue(patternFile.reload());
+            glowbot.periodic();
+            assertEquals(0x0000FF, output.getRGB(0));
+
+            // Patterns robot code made itself are left alone
+            GBSolid own = new GBSolid(Color.kWhite);
+            patternFile.getSection("strip").setCurrentPattern(own);
+            write(file, "#00FF00", "hasNote");
+            assertTrue(patternFile.reload());
+            assertSame(own, patternFile.getSection("strip").getCurrentPattern());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void everyUseGetsItsOwnInstance() throws IOException {
+        File file = write(null, "#00FF00", "idle");
+        try (GlowbotRio glowbot = new GlowbotRio(new GlowbotRioConfig(0, LENGTH), new MemoryOutput())) {
+            PatternFile patternFile = PatternFile.load(glowbot, file);
+            assertNotSame(patternFile.getPattern("idle"), patternFile.getPattern("idle"));
+            assertNotSame(patternFile.getPattern("idle"), patternFile.getSection("strip").getCurrentPattern());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a file with one section over the whole strip
+     *
+     * @param file          the file to overwrite, or null for a new one
+     * @param hasNoteColor  the color of the hasNote pattern
+     * @param stripPattern  the name of the pattern the section runs
+     */
+    private static File write(File file, String hasNoteColor, String stripPattern) throws IOException {
+        if (file == null) {
+            file = File.createTempFile("glowbot", ".json");
+        }
+        String json = "{" + String.format(PATTERNS, hasNoteColor) + ", \"sections\": [ { \"name\": \"strip\", "
+                + "\"start\": 0, \"end\": " + (LENGTH - 1) + ", \"pattern\": \"" + stripPattern + "\" } ] }";
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,53 @@
+package com.orangeunilabs.glowbot.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Frames sent with a {@link UdpOutput} arrive intact at a {@link UdpFrameReceiver} over loopback
+ */
+class UdpOutputTest {
+    private static final int LENGTH = 1000;
+
+    @Test
+    void loopback() throws IOException {
+        try (UdpFrameReceiver receiver = new UdpFrameReceiver(0);
+             UdpOutput output = new UdpOutput(new InetSocketAddress("127.0.0.1", receiver.getPort()),
+                     UdpOutput.DEFAULT_MAX_REFRESH_RATE_HERTZ)) {
+            output.open(LENGTH);
+            output.start();
+
+            // The first frame is sent whole, split over several packets
+            int[] frame = new int[LENGTH];
+            for (int idx = 0; idx < LENGTH; idx++) {
+                frame[idx] = idx * 0x010203 & 0xFFFFFF;
+            }
+            output.setData(frame, 0, LENGTH - 1);
+            receiveUntil(receiver, frame);
+            assertEquals(LENGTH, receiver.getLength());
+
+            // Later frames only send what changed
+            frame[500] = 0xFF8000;
+            frame[501] = 0x0080FF;
+            output.setData(frame, 500, 501);
+            receiveUntil(receiver, frame);
+        }
+    }
+
+    private static void receiveUntil(UdpFrameReceiver receiver, int[] expected) throws IOException {
+        for (int packets = 0; packets < 10; packets++) {
+            assertTrue(receiver.receive(1000), "timed out waiting for a packet");
+            if (Arrays.equals(expected, receiver.getFrame())) {
+                return;
+            }
+        }
+        assertArrayEquals(expected, receiver.getFrame());
+    }
+}
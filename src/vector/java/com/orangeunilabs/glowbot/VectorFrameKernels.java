@@ -0,0 +1,62 @@
+package com.orangeunilabs.glowbot;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The same math as {@link ScalarFrameKernels}, a whole SIMD register of LEDs at a time with the incubating Vector API.
+ * Only loaded by {@link FrameOps} when the {@code jdk.incubator.vector} module is present, and the tail of each run
+ * that does not fill a register is finished with the scalar loops.
+ */
+final class VectorFrameKernels implements FrameKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private final ScalarFrameKernels tail = new ScalarFrameKernels();
+
+    @Override
+    public void scale(int[] src, int[] dst, int start, int end, int brightness) {
+        int factor = brightness + 1;
+        int idx = start;
+        for (int bound = end + 1 - SPECIES.length(); idx <= bound; idx += SPECIES.length()) {
+            IntVector rgb = IntVector.fromArray(SPECIES, src, idx);
+            IntVector redBlue = rgb.and(0xFF00FF).mul(factor).lanewise(VectorOperators.LSHR, 8).and(0xFF00FF);
+            IntVector green = rgb.and(0xFF00).mul(factor).lanewise(VectorOperators.LSHR, 8).and(0xFF00);
+            redBlue.or(green).intoArray(dst, idx);
+        }
+        tail.scale(src, dst, idx, end, brightness);
+    }
+
+    @Override
+    public void add(int[] a, int[] b, int[] dst, int start, int end) {
+        int idx = start;
+        for (int bound = end + 1 - SPECIES.length(); idx <= bound; idx += SPECIES.length()) {
+            IntVector x = IntVector.fromArray(SPECIES, a, idx);
+            IntVector y = IntVector.fromArray(SPECIES, b, idx);
+            IntVector redBlue = x.and(0xFF00FF).add(y.and(0xFF00FF));
+            IntVector redBlueCarry = redBlue.and(0x1000100);
+            redBlue = redBlue.or(redBlueCarry.sub(redBlueCarry.lanewise(VectorOperators.LSHR, 8)));
+            IntVector green = x.and(0xFF00).add(y.and(0xFF00));
+            IntVector greenCarry = green.and(0x10000);
+            green = green.or(greenCarry.sub(greenCarry.lanewise(VectorOperators.LSHR, 8)));
+            redBlue.and(0xFF00FF).or(green.and(0xFF00)).intoArray(dst, idx);
+        }
+        tail.add(a, b, dst, idx, end);
+    }
+
+    @Override
+    public void lerp(int[] from, int[] to, int[] dst, int start, int end, int amount) {
+        int toWeight = amount + (amount >> 7);
+        int fromWeight = 256 - toWeight;
+        int idx = start;
+        for (int bound = end + 1 - SPECIES.length(); idx <= bound; idx += SPECIES.length()) {
+            IntVector x = IntVector.fromArray(SPECIES, from, idx);
+            IntVector y = IntVector.fromArray(SPECIES, to, idx);
+            IntVector redBlue = x.and(0xFF00FF).mul(fromWeight).add(y.and(0xFF00FF).mul(toWeight))
+                    .lanewise(VectorOperators.LSHR, 8).and(0xFF00FF);
+            IntVector green = x.and(0xFF00).mul(fromWeight).add(y.and(0xFF00).mul(toWeight))
+                    .lanewise(VectorOperators.LSHR, 8).and(0xFF00);
+            redBlue.or(green).intoArray(dst, idx);
+        }
+        tail.lerp(from, to, dst, idx, end, amount);
+    }
+}